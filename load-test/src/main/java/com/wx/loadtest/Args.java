@@ -0,0 +1,49 @@
+package com.wx.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析 --key=value 形式的命令行参数，同一个 key 可出现多次。
+ */
+final class Args {
+
+    private final Map<String, List<String>> values = new HashMap<>();
+
+    Args(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unrecognized argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "true" : arg.substring(eq + 1);
+            values.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    String string(String key, String defaultValue) {
+        List<String> list = values.get(key);
+        return list == null ? defaultValue : list.get(list.size() - 1);
+    }
+
+    List<String> strings(String key) {
+        return values.getOrDefault(key, List.of());
+    }
+
+    int integer(String key, int defaultValue) {
+        String value = string(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    double decimal(String key, double defaultValue) {
+        String value = string(key, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    boolean flag(String key) {
+        return Boolean.parseBoolean(string(key, "false"));
+    }
+}
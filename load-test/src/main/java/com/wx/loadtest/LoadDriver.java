@@ -0,0 +1,318 @@
+package com.wx.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * SSE 压测驱动：按阶梯逐步增加并发客户端，每个客户端循环请求目标地址并逐行读取流式响应。
+ * 每个阶梯输出吞吐（请求/秒、帧/秒）、首帧延迟 TTFT 与总耗时的分位数、错误数，
+ * 以及客户端到应用、应用到上游（桩服务器 /stats）两侧的连接峰值。
+ * <pre>
+ * java -cp target/classes com.wx.loadtest.LoadDriver \
+ *     --url="http://localhost:8081/api/chat?query=小微企业增值税起征点" \
+ *     --start=4 --max=64 --step=4 --step-seconds=30 --stats-url=http://localhost:11500/stats
+ * </pre>
+ * --url 可重复，多个地址轮流请求；样本按应用（scheme://host:port）分开统计，
+ * 同时压 spring-ai-chat 与 spring-ai-rag 时每个阶梯各输出一行，结束后按应用分段汇总。--csv=path 额外输出 CSV。
+ * <p>
+ * 阶梯结束时仍在进行的请求会跑完并计入该阶梯，吞吐按实际耗时（含收尾）计算。
+ */
+public final class LoadDriver {
+
+    private final List<URI> targets;
+    private final List<String> apps;
+    private final int start;
+    private final int max;
+    private final int step;
+    private final Duration stepDuration;
+    private final Duration timeout;
+    private final long thinkMillis;
+    private final URI statsUrl;
+    private final HttpClient client;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger peakConnections = new AtomicInteger();
+
+    private LoadDriver(Args args) {
+        this.targets = args.strings("url").stream().map(LoadDriver::encode).toList();
+        this.apps = targets.stream().map(LoadDriver::app).distinct().toList();
+        this.start = args.integer("start", 1);
+        this.max = args.integer("max", 32);
+        this.step = args.integer("step", 4);
+        this.stepDuration = Duration.ofSeconds(args.integer("step-seconds", 30));
+        this.timeout = Duration.ofSeconds(args.integer("timeout-seconds", 120));
+        this.thinkMillis = args.integer("think-ms", 0);
+        String stats = args.string("stats-url", null);
+        this.statsUrl = stats == null ? null : URI.create(stats);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        if (args.strings("url").isEmpty()) {
+            printUsage(System.err);
+            System.exit(2);
+        }
+        LoadDriver driver = new LoadDriver(args);
+        List<StepResult> results = driver.run();
+        String csv = args.string("csv", null);
+        if (csv != null) {
+            writeCsv(Path.of(csv), results);
+            System.out.println("CSV written to " + csv);
+        }
+        System.exit(0);
+    }
+
+    private List<StepResult> run() throws InterruptedException {
+        System.out.printf("Targets: %s%n", targets);
+        System.out.println(StepResult.HEADER);
+        List<StepResult> results = new ArrayList<>();
+        for (int concurrency = start; concurrency <= max; concurrency += step) {
+            for (StepResult result : runStep(concurrency)) {
+                results.add(result);
+                System.out.println(result.format());
+            }
+        }
+        if (apps.size() > 1) {
+            // 按应用分段汇总，便于对比两个应用在相同并发下的表现
+            for (String app : apps) {
+                System.out.printf("%n== %s ==%n", app);
+                System.out.println(StepResult.HEADER);
+                results.stream().filter(r -> r.app().equals(app)).forEach(r -> System.out.println(r.format()));
+            }
+        }
+        return results;
+    }
+
+    private List<StepResult> runStep(int concurrency) throws InterruptedException {
+        peakConnections.set(openConnections.get());
+        resetUpstreamStats();
+        Map<String, Samples> samples = new LinkedHashMap<>();
+        apps.forEach(app -> samples.put(app, new Samples()));
+        long begin = System.nanoTime();
+        long deadline = begin + stepDuration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        URI target = targets.get((int) (sequence.getAndIncrement() % targets.size()));
+                        execute(target, samples.get(app(target)));
+                        if (thinkMillis > 0) {
+                            try {
+                                Thread.sleep(thinkMillis);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            // 进行中的请求允许跑完，最多再等一个超时时间
+            if (!clients.awaitTermination(stepDuration.plus(timeout).toMillis(), TimeUnit.MILLISECONDS)) {
+                clients.shutdownNow();
+            }
+        }
+        // 收尾阶段完成的请求也计入了样本，所以按实际耗时而不是阶梯时长计算吞吐
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        int connections = peakConnections.get();
+        int upstream = upstreamPeak();
+        List<StepResult> results = new ArrayList<>();
+        samples.forEach((app, appSamples) ->
+            results.add(appSamples.summarize(app, concurrency, seconds, connections, upstream)));
+        return results;
+    }
+
+    private void execute(URI target, Samples samples) {
+        HttpRequest request = HttpRequest.newBuilder(target)
+            .timeout(timeout)
+            .header("Accept", "text/event-stream")
+            .GET()
+            .build();
+        long begin = System.nanoTime();
+        peakConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+        try {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() >= 400) {
+                response.body().close();
+                samples.error();
+                return;
+            }
+            long firstFrame = -1;
+            int frames = 0;
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> it = lines.iterator();
+                while (it.hasNext()) {
+                    String line = it.next();
+                    // 普通文本接口（/ai/weather）没有 data: 前缀，每行都算一帧
+                    boolean frame = line.startsWith("data:") || (!line.isEmpty() && !line.startsWith(":")
+                        && !line.startsWith("id:") && !line.startsWith("event:"));
+                    if (frame) {
+                        if (firstFrame < 0) {
+                            firstFrame = System.nanoTime();
+                        }
+                        frames++;
+                    }
+                }
+            }
+            long end = System.nanoTime();
+            samples.success(firstFrame < 0 ? end - begin : firstFrame - begin, end - begin, frames);
+        } catch (IOException e) {
+            samples.error();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private void resetUpstreamStats() {
+        if (statsUrl != null) {
+            fetchStats(URI.create(statsUrl + (statsUrl.getQuery() == null ? "?" : "&") + "reset=true"));
+        }
+    }
+
+    private int upstreamPeak() {
+        if (statsUrl == null) {
+            return -1;
+        }
+        Object peak = Json.parseObject(fetchStats(statsUrl)).get("peak");
+        return peak instanceof Number n ? n.intValue() : -1;
+    }
+
+    private String fetchStats(URI uri) {
+        try {
+            return client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        } catch (IOException e) {
+            return "{}";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "{}";
+        }
+    }
+
+    // 同一应用的多个地址（不同问题）合并统计
+    private static String app(URI target) {
+        return target.getScheme() + "://" + target.getAuthority();
+    }
+
+    // 允许直接在 --url 里写中文参数
+    private static URI encode(String url) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : url.toCharArray()) {
+            if (c > 0x7F || c == ' ') {
+                for (byte b : String.valueOf(c).getBytes(StandardCharsets.UTF_8)) {
+                    sb.append('%').append(String.format("%02X", b & 0xFF));
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return URI.create(sb.toString());
+    }
+
+    private static void writeCsv(Path path, List<StepResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("app,concurrency,requests,errors,req_per_sec,frames_per_sec,ttft_p50_ms,ttft_p90_ms,ttft_p99_ms,"
+            + "latency_p50_ms,latency_p99_ms,peak_client_connections,peak_upstream_connections");
+        for (StepResult r : results) {
+            lines.add(String.format("%s,%d,%d,%d,%.2f,%.1f,%.0f,%.0f,%.0f,%.0f,%.0f,%d,%d", r.app, r.concurrency, r.requests,
+                r.errors, r.requestsPerSec, r.framesPerSec, r.ttftP50, r.ttftP90, r.ttftP99, r.latencyP50,
+                r.latencyP99, r.peakConnections, r.upstreamPeak));
+        }
+        Files.write(path, lines);
+    }
+
+    /**
+     * 单个阶梯的样本，按请求记录 TTFT、总耗时（纳秒）与帧数
+     */
+    private static final class Samples {
+        private final List<Long> ttfts = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        void success(long ttftNanos, long latencyNanos, int frameCount) {
+            ttfts.add(ttftNanos);
+            latencies.add(latencyNanos);
+            frames.addAndGet(frameCount);
+        }
+
+        void error() {
+            errors.incrementAndGet();
+        }
+
+        StepResult summarize(String app, int concurrency, double seconds, int peakConnections, int upstreamPeak) {
+            List<Long> t;
+            List<Long> l;
+            synchronized (ttfts) {
+                t = new ArrayList<>(ttfts);
+            }
+            synchronized (latencies) {
+                l = new ArrayList<>(latencies);
+            }
+            Collections.sort(t);
+            Collections.sort(l);
+            return new StepResult(app, concurrency, l.size(), errors.get(), l.size() / seconds, frames.get() / seconds,
+                percentile(t, 50), percentile(t, 90), percentile(t, 99), percentile(l, 50), percentile(l, 99),
+                peakConnections, upstreamPeak);
+        }
+
+        private static double percentile(List<Long> sorted, int p) {
+            if (sorted.isEmpty()) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1_000_000.0;
+        }
+    }
+
+    /**
+     * 单个应用在一个阶梯内的结果；conns 与 upstream 是该阶梯所有应用共享的连接峰值
+     */
+    private record StepResult(String app, int concurrency, long requests, long errors, double requestsPerSec, double framesPerSec,
+                              double ttftP50, double ttftP90, double ttftP99, double latencyP50, double latencyP99,
+                              int peakConnections, int upstreamPeak) {
+
+        static final String HEADER = String.format("%-22s %6s %8s %6s %8s %9s %9s %9s %9s %9s %9s %7s %8s",
+            "app", "conc", "reqs", "errs", "req/s", "frames/s", "ttft50", "ttft90", "ttft99", "lat50", "lat99", "conns", "upstream");
+
+        String format() {
+            return String.format("%-22s %6d %8d %6d %8.2f %9.1f %9.0f %9.0f %9.0f %9.0f %9.0f %7d %8s", app, concurrency, requests,
+                errors, requestsPerSec, framesPerSec, ttftP50, ttftP90, ttftP99, latencyP50, latencyP99,
+                peakConnections, upstreamPeak < 0 ? "-" : String.valueOf(upstreamPeak));
+        }
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: LoadDriver --url=<sse-url> [--url=...] [--start=1] [--max=32] [--step=4] "
+            + "[--step-seconds=30] [--timeout-seconds=120] [--think-ms=0] [--stats-url=...] [--csv=path]");
+    }
+}
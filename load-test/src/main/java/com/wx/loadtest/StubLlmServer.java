@@ -0,0 +1,436 @@
+package com.wx.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地 LLM 桩服务器，同时模拟：
+ * <ul>
+ *     <li>OpenAI Chat Completions（/v1/chat/completions，含 SSE 流式与 tool_calls），可替代 spring.ai.openai.base-url</li>
+ *     <li>Ollama（/api/chat NDJSON 流式与 tool_calls、/api/embed、/api/embeddings、/api/tags），可替代 spring.ai.ollama.base-url</li>
+ * </ul>
+ * 首 token 延迟、生成速度、错误率均可配置；/stats 返回当前连接数与峰值，用来观察应用对上游的连接占用。
+ * <pre>
+ * java -cp target/classes com.wx.loadtest.StubLlmServer --port=11500 --ttft-ms=800 --tokens-per-sec=15
+ * </pre>
+ */
+public final class StubLlmServer {
+
+    private static final String[] TOKENS = {
+        "根据", "现有", "资料", "，", "北京", "今天", "天气", "晴朗", "，", "气温", "约", "15", "°C", "。",
+        "该", "政策", "适用于", "符合", "条件", "的", "小微", "企业", "，", "申报", "截止", "日期", "为", "三月", "底", "。", "\n"
+    };
+
+    private final int ttftMs;
+    private final int ttftJitterMs;
+    private final double tokensPerSec;
+    private final int tokens;
+    private final double errorRate;
+    private final int errorStatus;
+    private final double midStreamErrorRate;
+    private final int embedMs;
+    private final int dimension;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private StubLlmServer(Args args) {
+        this.ttftMs = args.integer("ttft-ms", 500);
+        this.ttftJitterMs = args.integer("ttft-jitter-ms", 0);
+        this.tokensPerSec = args.decimal("tokens-per-sec", 20);
+        this.tokens = args.integer("tokens", 120);
+        this.errorRate = args.decimal("error-rate", 0);
+        this.errorStatus = args.integer("error-status", 503);
+        this.midStreamErrorRate = args.decimal("midstream-error-rate", 0);
+        this.embedMs = args.integer("embed-ms", 30);
+        this.dimension = args.integer("dimension", 1024);
+    }
+
+    public static void main(String[] argv) throws IOException {
+        Args args = new Args(argv);
+        int port = args.integer("port", 11500);
+        StubLlmServer stub = new StubLlmServer(args);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        // 每个请求一个虚拟线程，模拟慢速生成时 sleep 不占平台线程
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", e -> stub.handle(e, stub::openAiChat));
+        server.createContext("/chat/completions", e -> stub.handle(e, stub::openAiChat));
+        server.createContext("/v1/models", e -> stub.handle(e, stub::openAiModels));
+        server.createContext("/api/chat", e -> stub.handle(e, stub::ollamaChat));
+        server.createContext("/api/embed", e -> stub.handle(e, stub::ollamaEmbed));
+        server.createContext("/api/embeddings", e -> stub.handle(e, stub::ollamaEmbeddings));
+        server.createContext("/api/tags", e -> stub.handle(e, stub::ollamaTags));
+        server.createContext("/api/show", e -> stub.handle(e, ex -> stub.json(ex, 200, Map.of("modelfile", "", "parameters", "", "template", "", "details", Map.of()))));
+        server.createContext("/stats", stub::stats);
+        server.createContext("/", e -> stub.handle(e, stub::root));
+        server.start();
+
+        System.out.printf("Stub LLM server listening on http://localhost:%d%n", port);
+        System.out.printf("  ttft=%dms(+%dms jitter) speed=%.1f tok/s tokens=%d error-rate=%.3f midstream-error-rate=%.3f%n",
+            stub.ttftMs, stub.ttftJitterMs, stub.tokensPerSec, stub.tokens, stub.errorRate, stub.midStreamErrorRate);
+        System.out.printf("  spring.ai.openai.base-url=http://localhost:%d  spring.ai.ollama.base-url=http://localhost:%d%n", port, port);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        requests.incrementAndGet();
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        boolean aborted = false;
+        try {
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate && !exchange.getRequestURI().getPath().equals("/")) {
+                injectedErrors.incrementAndGet();
+                json(exchange, errorStatus, Map.of("error", Map.of("message", "injected failure", "type", "server_error")));
+                return;
+            }
+            handler.handle(exchange);
+        } catch (IllegalArgumentException e) {
+            // 请求体不是合法 JSON
+            try {
+                json(exchange, 400, Map.of("error", Map.of("message", String.valueOf(e.getMessage()))));
+            } catch (IOException ignored) {
+                // 响应头已发出，只能直接断开
+            }
+        } catch (AbortConnection e) {
+            // 不能关闭 exchange：close 会补上结束块，客户端看到的是正常结束的短回答。
+            // 异常抛回 HttpServer 后由它直接关闭底层连接，客户端读到的是不完整的 chunked 响应
+            aborted = true;
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // 客户端断开，无需处理
+        } finally {
+            active.decrementAndGet();
+            if (!aborted) {
+                exchange.close();
+            }
+        }
+    }
+
+    // ==================== OpenAI ====================
+
+    @SuppressWarnings("unchecked")
+    private void openAiChat(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = Json.parseObject(body(exchange));
+        String model = String.valueOf(request.getOrDefault("model", "stub"));
+        boolean stream = Boolean.TRUE.equals(request.get("stream"));
+        ToolCall toolCall = pendingToolCall(request);
+        String id = "chatcmpl-" + UUID.randomUUID();
+        long created = Instant.now().getEpochSecond();
+
+        if (!stream) {
+            sleepMillis(ttft() + (long) (tokens * 1000 / tokensPerSec));
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("role", "assistant");
+            if (toolCall != null) {
+                message.put("content", null);
+                message.put("tool_calls", List.of(Map.of("id", toolCall.id(), "type", "function",
+                    "function", Map.of("name", toolCall.name(), "arguments", Json.write(toolCall.arguments())))));
+            } else {
+                message.put("content", text(tokens));
+            }
+            json(exchange, 200, Map.of("id", id, "object", "chat.completion", "created", created, "model", model,
+                "choices", List.of(Map.of("index", 0, "message", message,
+                    "finish_reason", toolCall != null ? "tool_calls" : "stop")),
+                "usage", usage()));
+            return;
+        }
+
+        // OpenAI 先回响应头，再经过首 token 延迟开始推送
+        OutputStream out = startStream(exchange, "text/event-stream");
+        sleepMillis(ttft());
+        if (toolCall != null) {
+            Map<String, Object> delta = Map.of("role", "assistant", "tool_calls", List.of(Map.of("index", 0,
+                "id", toolCall.id(), "type", "function",
+                "function", Map.of("name", toolCall.name(), "arguments", Json.write(toolCall.arguments())))));
+            sse(out, openAiChunk(id, created, model, delta, null));
+            sse(out, openAiChunk(id, created, model, Map.of(), "tool_calls"));
+        } else {
+            long start = System.nanoTime();
+            for (int i = 0; i < tokens; i++) {
+                if (i > 0) {
+                    sleepUntil(start + (long) (i * 1_000_000_000L / tokensPerSec));
+                }
+                maybeAbort();
+                Map<String, Object> delta = i == 0
+                    ? Map.of("role", "assistant", "content", TOKENS[i % TOKENS.length])
+                    : Map.of("content", TOKENS[i % TOKENS.length]);
+                sse(out, openAiChunk(id, created, model, delta, null));
+            }
+            sse(out, openAiChunk(id, created, model, Map.of(), "stop"));
+        }
+        Object streamOptions = request.get("stream_options");
+        if (streamOptions instanceof Map<?, ?> options && Boolean.TRUE.equals(options.get("include_usage"))) {
+            sse(out, Json.write(Map.of("id", id, "object", "chat.completion.chunk", "created", created, "model", model,
+                "choices", List.of(), "usage", usage())));
+        }
+        sse(out, "[DONE]");
+    }
+
+    private String openAiChunk(String id, long created, String model, Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        return Json.write(Map.of("id", id, "object", "chat.completion.chunk", "created", created, "model", model,
+            "choices", List.of(choice)));
+    }
+
+    private void openAiModels(HttpExchange exchange) throws IOException {
+        json(exchange, 200, Map.of("object", "list", "data", List.of(Map.of("id", "deepseek-chat", "object", "model"))));
+    }
+
+    private Map<String, Object> usage() {
+        return Map.of("prompt_tokens", 256, "completion_tokens", tokens, "total_tokens", 256 + tokens);
+    }
+
+    // ==================== Ollama ====================
+
+    private void ollamaChat(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = Json.parseObject(body(exchange));
+        String model = String.valueOf(request.getOrDefault("model", "stub"));
+        boolean stream = !Boolean.FALSE.equals(request.get("stream"));
+        ToolCall toolCall = pendingToolCall(request);
+        long start = System.nanoTime();
+
+        if (!stream) {
+            sleepMillis(ttft() + (long) (tokens * 1000 / tokensPerSec));
+            json(exchange, 200, ollamaMessage(model, toolCall == null ? text(tokens) : "", toolCall, true, start));
+            return;
+        }
+
+        // Ollama 在第一个 token 生成后才写出响应头
+        sleepMillis(ttft());
+        OutputStream out = startStream(exchange, "application/x-ndjson");
+        if (toolCall != null) {
+            ndjson(out, ollamaMessage(model, "", toolCall, false, start));
+        } else {
+            long first = System.nanoTime();
+            for (int i = 0; i < tokens; i++) {
+                if (i > 0) {
+                    sleepUntil(first + (long) (i * 1_000_000_000L / tokensPerSec));
+                }
+                maybeAbort();
+                ndjson(out, ollamaMessage(model, TOKENS[i % TOKENS.length], null, false, start));
+            }
+        }
+        ndjson(out, ollamaMessage(model, "", null, true, start));
+    }
+
+    private Map<String, Object> ollamaMessage(String model, String content, ToolCall toolCall, boolean done, long start) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", "assistant");
+        message.put("content", content);
+        if (toolCall != null) {
+            message.put("tool_calls", List.of(Map.of("function",
+                Map.of("name", toolCall.name(), "arguments", toolCall.arguments()))));
+        }
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("model", model);
+        chunk.put("created_at", Instant.now().toString());
+        chunk.put("message", message);
+        chunk.put("done", done);
+        if (done) {
+            long elapsed = System.nanoTime() - start;
+            chunk.put("done_reason", "stop");
+            chunk.put("total_duration", elapsed);
+            chunk.put("load_duration", 0);
+            chunk.put("prompt_eval_count", 256);
+            chunk.put("prompt_eval_duration", TimeUnit.MILLISECONDS.toNanos(ttftMs));
+            chunk.put("eval_count", tokens);
+            chunk.put("eval_duration", Math.max(0, elapsed - TimeUnit.MILLISECONDS.toNanos(ttftMs)));
+        }
+        return chunk;
+    }
+
+    private void ollamaEmbed(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = Json.parseObject(body(exchange));
+        Object input = request.get("input");
+        List<String> inputs = new ArrayList<>();
+        if (input instanceof List<?> list) {
+            list.forEach(item -> inputs.add(String.valueOf(item)));
+        } else if (input != null) {
+            inputs.add(String.valueOf(input));
+        }
+        sleepMillis(embedMs);
+        List<float[]> embeddings = new ArrayList<>(inputs.size());
+        inputs.forEach(text -> embeddings.add(vector(text)));
+        json(exchange, 200, Map.of("model", String.valueOf(request.getOrDefault("model", "stub")),
+            "embeddings", embeddings, "prompt_eval_count", inputs.size()));
+    }
+
+    private void ollamaEmbeddings(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = Json.parseObject(body(exchange));
+        sleepMillis(embedMs);
+        json(exchange, 200, Map.of("embedding", vector(String.valueOf(request.get("prompt")))));
+    }
+
+    private void ollamaTags(HttpExchange exchange) throws IOException {
+        json(exchange, 200, Map.of("models", List.of(
+            Map.of("name", "qwen2.5:0.5b", "model", "qwen2.5:0.5b"),
+            Map.of("name", "bge-m3:latest", "model", "bge-m3:latest"))));
+    }
+
+    private void root(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/")) {
+            json(exchange, 404, Map.of("error", "not found: " + exchange.getRequestURI().getPath()));
+            return;
+        }
+        byte[] bytes = "Ollama is running".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    // ==================== 统计 ====================
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", active.get());
+            stats.put("peak", peak.get());
+            stats.put("requests", requests.get());
+            stats.put("injectedErrors", injectedErrors.get());
+            if ("reset=true".equals(exchange.getRequestURI().getQuery())) {
+                peak.set(active.get());
+            }
+            json(exchange, 200, stats);
+        }
+    }
+
+    // ==================== 工具方法 ====================
+
+    private record ToolCall(String id, String name, Map<String, Object> arguments) {
+    }
+
+    /**
+     * 请求里声明了工具、且对话中还没有工具结果时，模拟模型发起一次工具调用：
+     * 调用第一个工具，所有参数都填 "北京"。
+     */
+    @SuppressWarnings("unchecked")
+    private static ToolCall pendingToolCall(Map<String, Object> request) {
+        if (!(request.get("tools") instanceof List<?> tools) || tools.isEmpty()) {
+            return null;
+        }
+        if (request.get("messages") instanceof List<?> messages) {
+            for (Object message : messages) {
+                if (message instanceof Map<?, ?> m && "tool".equals(m.get("role"))) {
+                    return null;
+                }
+            }
+        }
+        Map<String, Object> function = (Map<String, Object>) ((Map<String, Object>) tools.get(0)).get("function");
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        if (function.get("parameters") instanceof Map<?, ?> parameters
+            && parameters.get("properties") instanceof Map<?, ?> properties) {
+            properties.keySet().forEach(key -> arguments.put(String.valueOf(key), "北京"));
+        }
+        return new ToolCall("call_" + UUID.randomUUID().toString().substring(0, 8),
+            String.valueOf(function.get("name")), arguments);
+    }
+
+    private long ttft() {
+        return ttftMs + (ttftJitterMs > 0 ? ThreadLocalRandom.current().nextInt(ttftJitterMs + 1) : 0);
+    }
+
+    private void maybeAbort() {
+        if (midStreamErrorRate > 0 && ThreadLocalRandom.current().nextDouble() < midStreamErrorRate / tokens) {
+            injectedErrors.incrementAndGet();
+            throw new AbortConnection();
+        }
+    }
+
+    /**
+     * 注入的生成中途断流：沿调用栈抛出，跳过 exchange.close()
+     */
+    private static final class AbortConnection extends RuntimeException {
+        AbortConnection() {
+            super("injected mid-stream failure", null, false, false);
+        }
+    }
+
+    private String text(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(TOKENS[i % TOKENS.length]);
+        }
+        return sb.toString();
+    }
+
+    private float[] vector(String text) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private void json(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static OutputStream startStream(HttpExchange exchange, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        return exchange.getResponseBody();
+    }
+
+    private static void sse(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void ndjson(OutputStream out, Object chunk) throws IOException {
+        out.write((Json.write(chunk) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleepMillis(long millis) {
+        sleepUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# 快速启动训练：Spring AOT 构建 -> 解压 jar -> 训练运行生成 CDS 归档（JDK 24+ 生成 AOT 缓存）
+#
+# 用法：scripts/fast-start-train.sh spring-ai-rag|spring-ai-chat
+# 产物：<模块>/target/fast-start/ 下的解压应用、缓存文件，以及记录运行参数的 jvm.options
+# 启动：cd <模块>/target/fast-start && java $(cat jvm.options) -jar <模块>-*.jar
+#
+# 训练运行在上下文刷新后立即退出（spring.context.exit=onRefresh），不处理请求；
+# spring-ai-rag 的 Milvus 客户端、Tika、重排模型是延迟初始化的，训练时不需要 Milvus/Ollama 可用。
+# 缓存与 JDK 版本、jar 内容绑定，换 JDK 或重新构建后需要重新训练。
+set -euo pipefail
+
+MODULE="${1:?用法: $0 spring-ai-rag|spring-ai-chat}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+cd "$ROOT/$MODULE"
+
+mvn -B -q -Pfast-start -DskipTests package
+JAR="$(ls target/"$MODULE"-*.jar | head -1)"
+OUT=target/fast-start
+rm -rf "$OUT"
+# 解压后的 jar + lib/ 目录结构能被 CDS 归档，fat jar 内嵌的 jar 不行
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT"
+APP="$(basename "$JAR")"
+cd "$OUT"
+
+# 训练只刷新上下文，占位配置给个假值即可
+export CLOUD_IP="${CLOUD_IP:-127.0.0.1}"
+export OPENAI_API_KEY="${OPENAI_API_KEY:-training}"
+TRAIN_OPTS=(-Dspring.aot.enabled=true -Dspring.context.exit=onRefresh)
+
+JAVA_VERSION="$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')"
+if [ "$JAVA_VERSION" -ge 25 ]; then
+    # JEP 514：一次运行完成记录与生成
+    java -XX:AOTCacheOutput=app.aot "${TRAIN_OPTS[@]}" -jar "$APP"
+    CACHE_OPT="-XX:AOTCache=app.aot"
+elif [ "$JAVA_VERSION" -ge 24 ]; then
+    # JEP 483：先记录训练数据，再生成 AOT 缓存
+    java -XX:AOTMode=record -XX:AOTConfiguration=app.aotconf "${TRAIN_OPTS[@]}" -jar "$APP"
+    java -XX:AOTMode=create -XX:AOTConfiguration=app.aotconf -XX:AOTCache=app.aot -jar "$APP"
+    rm -f app.aotconf
+    CACHE_OPT="-XX:AOTCache=app.aot"
+else
+    # JDK 21：动态 CDS 归档，退出时写出
+    java -XX:ArchiveClassesAtExit=app.jsa "${TRAIN_OPTS[@]}" -jar "$APP"
+    CACHE_OPT="-XX:SharedArchiveFile=app.jsa"
+fi
+
+echo "-Dspring.aot.enabled=true $CACHE_OPT" > jvm.options
+echo "训练完成（JDK $JAVA_VERSION）：$ROOT/$MODULE/$OUT"
+echo "启动：cd $ROOT/$MODULE/$OUT && java $(cat jvm.options) -jar $APP"
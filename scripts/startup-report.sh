@@ -0,0 +1,116 @@
+#!/usr/bin/env bash
+# 启动耗时对比：改造前的启动方式 vs 快速启动，结果写入 <模块>/target/startup-report.md
+#
+# 用法：scripts/startup-report.sh spring-ai-rag|spring-ai-chat [每种模式的次数，默认 5]
+#
+#   baseline   java -jar fat jar，spring-ai-rag 关闭延迟初始化和预热（改造前的启动方式）
+#   aot        解压 jar + Spring AOT
+#   aot+cache  解压 jar + Spring AOT + CDS 归档 / AOT 缓存（fast-start-train.sh 的产物）
+#
+# aot / aot+cache 使用默认配置，spring-ai-rag 的延迟初始化与预热保持开启。
+#
+# 每次启动用随机端口，读到 "Started ... in X seconds (process running for Y)" 后结束进程；
+# 不发请求。aot / aot+cache 在 Milvus/Ollama 不可用时也能测（spring-ai-rag 的预热失败只打警告）；
+# spring-ai-rag 的 baseline 在启动时创建 Milvus 客户端，需要 CLOUD_IP 指向可用的 Milvus。
+set -euo pipefail
+
+MODULE="${1:?用法: $0 spring-ai-rag|spring-ai-chat [次数]}"
+RUNS="${2:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE_DIR="$ROOT/$MODULE"
+OUT="$MODULE_DIR/target/fast-start"
+
+if [ ! -f "$OUT/jvm.options" ]; then
+    "$ROOT/scripts/fast-start-train.sh" "$MODULE"
+fi
+APP="$(cd "$OUT" && ls "$MODULE"-*.jar | head -1)"
+export CLOUD_IP="${CLOUD_IP:-127.0.0.1}"
+export OPENAI_API_KEY="${OPENAI_API_KEY:-startup-report}"
+
+# 启动一次，输出 "上下文耗时 进程耗时"（秒）
+measure() {
+    local dir="$1"
+    shift
+    local log
+    log="$(mktemp)"
+    (cd "$dir" && exec java "$@" --server.port=0) >"$log" 2>&1 &
+    local pid=$!
+    local line=""
+    for _ in $(seq 1 1200); do
+        line="$(grep -m1 -oE 'Started [A-Za-z0-9_$]+ in [0-9.]+ seconds \(process running for [0-9.]+\)' "$log" || true)"
+        if [ -n "$line" ] || ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.1
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$line" ]; then
+        echo "启动失败，日志见 $log" >&2
+        exit 1
+    fi
+    rm -f "$log"
+    echo "$line" | sed -E 's/.* in ([0-9.]+) seconds \(process running for ([0-9.]+)\)/\1 \2/'
+}
+
+# 读入 "上下文 进程" 多行，输出 "上下文中位数 进程中位数 进程最小 进程最大"
+summarize() {
+    local samples="$1"
+    local context process
+    context="$(cut -d' ' -f1 <<<"$samples" | sort -n | awk '{v[NR]=$1} END {print (NR%2) ? v[(NR+1)/2] : (v[NR/2]+v[NR/2+1])/2}')"
+    process="$(cut -d' ' -f2 <<<"$samples" | sort -n | awk '{v[NR]=$1} END {print (NR%2) ? v[(NR+1)/2] : (v[NR/2]+v[NR/2+1])/2, v[1], v[NR]}')"
+    echo "$context $process"
+}
+
+# rag.startup.lazy-beans 置空后 Milvus 客户端、Tika、重排模型都回到启动时创建
+BASELINE_ARGS=""
+if [ "$MODULE" = spring-ai-rag ]; then
+    BASELINE_ARGS="--rag.startup.lazy-beans= --rag.startup.warm-up=false"
+fi
+
+declare -A OPTS=(
+    [baseline]="$BASELINE_ARGS"
+    [aot]="-Dspring.aot.enabled=true"
+    [aot+cache]="$(cat "$OUT/jvm.options")"
+)
+MODES=(baseline aot aot+cache)
+declare -A RESULT
+
+for mode in "${MODES[@]}"; do
+    samples=""
+    # 第一次启动用来预热文件系统缓存，不计入结果
+    for i in $(seq 0 "$RUNS"); do
+        if [ "$mode" = baseline ]; then
+            # shellcheck disable=SC2086
+            sample="$(measure "$MODULE_DIR" -jar "target/$APP" $BASELINE_ARGS)"
+        else
+            # shellcheck disable=SC2086
+            sample="$(measure "$OUT" ${OPTS[$mode]} -jar "$APP")"
+        fi
+        if [ "$i" -gt 0 ]; then
+            samples+="$sample"$'\n'
+            echo "$mode #$i: $sample"
+        fi
+    done
+    RESULT[$mode]="$(summarize "${samples%$'\n'}")"
+done
+
+REPORT="$MODULE_DIR/target/startup-report.md"
+BASE="$(cut -d' ' -f2 <<<"${RESULT[baseline]}")"
+{
+    echo "# $MODULE 启动耗时"
+    echo
+    echo "- 时间：$(date '+%Y-%m-%d %H:%M:%S')"
+    echo "- JDK：$(java -version 2>&1 | head -1)"
+    echo "- 每种模式 $RUNS 次（另有 1 次预热不计入），取中位数；进程耗时含 JVM 启动"
+    echo
+    echo "| 模式 | 启动参数 | 上下文启动 (s) | 进程启动 (s) | 进程最小 / 最大 (s) | 相对 baseline |"
+    echo "|------|----------|----------------|--------------|---------------------|---------------|"
+    for mode in "${MODES[@]}"; do
+        read -r context process min max <<<"${RESULT[$mode]}"
+        ratio="$(awk -v b="$BASE" -v p="$process" 'BEGIN {printf "%.0f%%", p / b * 100}')"
+        echo "| $mode | \`${OPTS[$mode]:-无}\` | $context | $process | $min / $max | $ratio |"
+    done
+} >"$REPORT"
+
+cat "$REPORT"
@@ -255,11 +255,12 @@ public final class SelfRefineEvaluationAdvisor implements CallAdvisor, StreamAdv
     /**
      * 从原始请求中提取“问题”内容，用于评估。
      * 当前实现将系统消息 + 用户/助手对话历史拼接为字符串。
+     * 包内可见，供 AdvisorBenchmark 单独测量拼接开销。
      *
      * @param chatClientRequest 原始请求
      * @return 用于评估的“问题”字符串
      */
-    private String getPromptQuestion(ChatClientRequest chatClientRequest) {
+    String getPromptQuestion(ChatClientRequest chatClientRequest) {
         var messages = chatClientRequest.prompt().getInstructions();
 
         // 拼接用户和助手的历史消息
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.config;
+
+import com.wx.ai.chat.stream.ResumableStreamRegistry;
+import com.wx.ai.chat.stream.StreamShaper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StreamProperties.class)
+public class StreamConfig {
+
+    // 无状态，每个流的合并缓冲在订阅时单独创建
+    @Bean
+    public StreamShaper streamShaper(StreamProperties properties) {
+        return new StreamShaper(properties.getFlushInterval(), properties.getMaxChars(), properties.getHeartbeat());
+    }
+
+    // 回放缓冲按实例保存，多实例部署时需要负载均衡按会话粘滞，否则续传会退化为重新生成
+    @Bean
+    public ResumableStreamRegistry resumableStreamRegistry(StreamProperties properties) {
+        StreamProperties.Resume resume = properties.getResume();
+        return new ResumableStreamRegistry(resume.isEnabled(), resume.getGracePeriod(), resume.getTtl(),
+            resume.getMaxEntries(), resume.getMaxEvents(), resume.getMaxBytes());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * SSE 流整形参数（ai.stream.*）
+ */
+@ConfigurationProperties(prefix = "ai.stream")
+public class StreamProperties {
+
+    /**
+     * 合并窗口：第一个未下发的 token 最多等待这么久，设为 0 关闭合并、逐 token 下发
+     */
+    private Duration flushInterval = Duration.ofMillis(30);
+
+    /**
+     * 缓冲达到该字符数立即下发，不等合并窗口结束
+     */
+    private int maxChars = 64;
+
+    /**
+     * 空闲心跳间隔：超过该时间无输出时发送 SSE 注释，防止代理断开长时间 prefill 的连接；设为 0 关闭
+     */
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    /**
+     * /ai/generateStream 的帧格式：FULL 逐帧下发完整 ChatResponse（默认，与原有客户端兼容），
+     * DELTA 只下发合并后的文本增量，需要客户端按纯文本解析，按需开启
+     */
+    private Payload generatePayload = Payload.FULL;
+
+    private final Resume resume = new Resume();
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public void setMaxChars(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public Duration getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Payload getGeneratePayload() {
+        return generatePayload;
+    }
+
+    public void setGeneratePayload(Payload generatePayload) {
+        this.generatePayload = generatePayload;
+    }
+
+    public Resume getResume() {
+        return resume;
+    }
+
+    public enum Payload {
+        DELTA, FULL
+    }
+
+    public static class Resume {
+
+        /**
+         * 是否登记可续传的流；关闭后连接断开即取消生成，重连会重新生成
+         */
+        private boolean enabled = true;
+
+        /**
+         * 所有连接断开后保留上游生成的时长，期间可带 Last-Event-ID 重连续传
+         */
+        private Duration gracePeriod = Duration.ofSeconds(30);
+
+        /**
+         * 生成完成后回放缓冲的保留时长
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * 最多登记的流数，超出时优先淘汰最早完成的流
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * 每个流回放缓冲最多保留的帧数，超出时丢弃最早的帧，断点早于缓冲的重连会重新生成
+         */
+        private int maxEvents = 2000;
+
+        /**
+         * 每个流回放缓冲最多保留的字节数（UTF-8），与 maxEvents 先到先生效
+         */
+        private long maxBytes = 256 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getGracePeriod() {
+            return gracePeriod;
+        }
+
+        public void setGracePeriod(Duration gracePeriod) {
+            this.gracePeriod = gracePeriod;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxEvents() {
+            return maxEvents;
+        }
+
+        public void setMaxEvents(int maxEvents) {
+            this.maxEvents = maxEvents;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+}
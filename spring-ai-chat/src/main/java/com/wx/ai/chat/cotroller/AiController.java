@@ -6,7 +6,10 @@
  */
 package com.wx.ai.chat.cotroller;
 
+import com.wx.ai.chat.config.StreamProperties;
 import com.wx.ai.chat.service.WeatherService;
+import com.wx.ai.chat.stream.ResumableStreamRegistry;
+import com.wx.ai.chat.stream.StreamShaper;
 import jakarta.annotation.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +19,7 @@ import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
@@ -28,20 +32,33 @@ public class AiController {
     private WeatherService weatherService;
 
     private final OpenAiChatModel chatModel;
+    private final StreamShaper streamShaper;
+    private final StreamProperties streamProperties;
+    private final ResumableStreamRegistry streamRegistry;
 
     @Autowired
-    public AiController(OpenAiChatModel chatModel) {
+    public AiController(OpenAiChatModel chatModel, StreamShaper streamShaper, StreamProperties streamProperties,
+            ResumableStreamRegistry streamRegistry) {
         this.chatModel = chatModel;
+        this.streamShaper = streamShaper;
+        this.streamProperties = streamProperties;
+        this.streamRegistry = streamRegistry;
     }
 
 
     @GetMapping(value = "/weather/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> weatherStream(@RequestParam(value = "city", defaultValue = "北京") String city) {
+    public Flux<ServerSentEvent<String>> weatherStream(@RequestParam(value = "city", defaultValue = "北京") String city,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
         // 简单的后端校验
         if (!city.matches("^[a-zA-Z\\u4e00-\\u9fa5\\s·]+$")) {
-            return Flux.just("无效的城市名");
+            return Flux.just(ServerSentEvent.builder("无效的城市名").build());
         }
-        return weatherService.doWorkStream(city);
+        // token 合并成帧下发，工具调用/prefill 期间发送心跳
+        // 断线后带 Last-Event-ID（请求头或 lastEventId 参数）重连，从断点续传，不重新生成
+        String resumeFrom = lastEventId != null ? lastEventId : lastEventIdParam;
+        return streamShaper.withHeartbeat(streamRegistry.attach("weather|" + city, resumeFrom,
+                () -> streamShaper.coalesce(weatherService.doWorkStream(city))));
     }
 
     @GetMapping("/weather")
@@ -50,9 +67,37 @@ public class AiController {
     }
 
     @GetMapping(value = "/generateStream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ChatResponse> generateStream(
+    public Flux<ServerSentEvent<Object>> generateStream(
             @RequestParam(value = "message", defaultValue = "Tell me a joke") String message) {
-        return chatModel.stream(new Prompt(new UserMessage(message)));
+        Flux<ChatResponse> responses = chatModel.stream(new Prompt(new UserMessage(message)));
+        if (streamProperties.getGeneratePayload() == StreamProperties.Payload.FULL) {
+            // 完整模式：每帧一个 ChatResponse（含 metadata），逐帧 JSON 序列化，不做合并
+            return streamShaper.withHeartbeat(
+                    responses.map(response -> ServerSentEvent.<Object>builder(response).build()));
+        }
+        // 增量模式：只取文本增量并合并，省去逐 token 的 JSON 序列化
+        return streamShaper.shape(responses.map(AiController::deltaText)).map(AiController::asObjectEvent);
+    }
+
+    /**
+     * 两种帧格式统一成同一个返回类型：原样复制文本帧的各个字段
+     */
+    private static ServerSentEvent<Object> asObjectEvent(ServerSentEvent<String> event) {
+        return ServerSentEvent.<Object>builder()
+                .id(event.id())
+                .event(event.event())
+                .retry(event.retry())
+                .comment(event.comment())
+                .data(event.data())
+                .build();
+    }
+
+    private static String deltaText(ChatResponse response) {
+        if (response.getResult() == null || response.getResult().getOutput() == null) {
+            return "";
+        }
+        String text = response.getResult().getOutput().getText();
+        return text == null ? "" : text;
     }
 }
 
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 可续传的 SSE 流。
+ * <p>
+ * 每次生成登记为一个流，生成结果（合并后的帧）写入服务端回放缓冲，与 HTTP 连接解耦：
+ * 连接断开不会立即取消生成。每帧的 SSE id 为 {@code <streamId>:<seq>}，浏览器带
+ * {@code Last-Event-ID} 重连时从断点之后继续回放，不再重新检索和生成。
+ * <p>
+ * 生命周期：
+ * <ul>
+ *     <li>所有连接断开后进入宽限期，宽限期内无人重连则取消上游生成并移除该流</li>
+ *     <li>生成完成的流保留 {@code ttl}，供稍晚的重连回放，过期后移除</li>
+ *     <li>登记数超过 {@code maxEntries} 时优先淘汰最早完成的流</li>
+ *     <li>过期与淘汰除了新建流时顺带执行，还有定时清理，空闲时也会释放</li>
+ * </ul>
+ * 回放缓冲只保留最近 {@code maxEvents} 帧且不超过 {@code maxBytes}，超出时丢弃最早的帧。
+ * <p>
+ * 流 id 只在本实例内有效：找不到、已淘汰、断点已被挤出回放缓冲或请求参数不一致时，
+ * 先下发 {@code reset} 事件通知客户端丢弃已显示的内容，再按新请求重新生成。
+ */
+public class ResumableStreamRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableStreamRegistry.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final int maxEvents;
+    private final long maxBytes;
+    private final Scheduler scheduler;
+    private final Disposable sweeper;
+
+    public ResumableStreamRegistry(boolean enabled, Duration gracePeriod, Duration ttl, int maxEntries,
+        int maxEvents, long maxBytes) {
+        this(enabled, gracePeriod, ttl, maxEntries, maxEvents, maxBytes, Schedulers.parallel());
+    }
+
+    public ResumableStreamRegistry(boolean enabled, Duration gracePeriod, Duration ttl, int maxEntries,
+        int maxEvents, long maxBytes, Scheduler scheduler) {
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        this.scheduler = scheduler;
+        // 没有新请求时也要按 ttl 释放回放缓冲
+        long sweepMillis = Math.max(1000, Math.min(ttl.toMillis(), Duration.ofMinutes(1).toMillis()));
+        this.sweeper = enabled
+            ? scheduler.schedulePeriodically(this::evict, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS)
+            : null;
+    }
+
+    /**
+     * 新建或续传一个流
+     *
+     * @param key         请求标识（如问题 + 会话 id），续传时必须与原请求一致，防止串流
+     * @param lastEventId 客户端收到的最后一个事件 id，为空表示新请求
+     * @param generation  生成帧的上游，只有新建流时才会订阅
+     */
+    public Flux<ServerSentEvent<String>> attach(String key, String lastEventId, Supplier<Flux<String>> generation) {
+        if (!enabled) {
+            return Flux.defer(generation).map(text -> ServerSentEvent.builder(text).build());
+        }
+        if (StringUtils.hasText(lastEventId)) {
+            int separator = lastEventId.lastIndexOf(':');
+            Entry entry = separator > 0 ? entries.get(lastEventId.substring(0, separator)) : null;
+            long seq = separator > 0 ? parseSeq(lastEventId.substring(separator + 1)) : -1;
+            if (entry != null && seq >= 0 && entry.key.equals(key)) {
+                LOGGER.info("SSE 续传: stream={}, 从第 {} 帧之后开始", entry.id, seq);
+                return entry.connect(seq, generation);
+            }
+            LOGGER.info("SSE 续传失败，重新生成: lastEventId={}", lastEventId);
+            return reset(open(key, generation));
+        }
+        return open(key, generation);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Spring 关闭容器时按推断的销毁方法调用
+    public void close() {
+        if (sweeper != null) {
+            sweeper.dispose();
+        }
+    }
+
+    // 通知客户端丢弃续传前已显示的内容，随后的帧是重新生成的完整回答
+    private static Flux<ServerSentEvent<String>> reset(Flux<ServerSentEvent<String>> regenerated) {
+        return Flux.concat(Flux.just(ServerSentEvent.builder("").event("reset").build()), regenerated);
+    }
+
+    private Flux<ServerSentEvent<String>> open(String key, Supplier<Flux<String>> generation) {
+        evict();
+        Entry entry = new Entry(UUID.randomUUID().toString().replace("-", ""), key, generation);
+        entries.put(entry.id, entry);
+        return entry.connect(0, generation);
+    }
+
+    // 新建流时顺带清理，另有定时任务兜底
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        int overflow = entries.size() - maxEntries;
+        if (overflow > 0) {
+            entries.values().stream()
+                .filter(Entry::isCompleted)
+                .sorted(Comparator.comparingLong(Entry::lastActive))
+                .limit(overflow)
+                .toList()
+                .forEach(entry -> entries.remove(entry.id, entry));
+        }
+    }
+
+    private static long parseSeq(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Frame(long seq, String text, int bytes) {
+    }
+
+    /**
+     * 单个流：一个上游订阅 + 有界回放缓冲 + 当前连接。状态变更都在 this 上加锁，
+     * 新帧写入缓冲和推给连接在同一把锁内完成，续传时的回放与实时帧之间不会漏帧或重复。
+     */
+    private final class Entry {
+
+        private final String id;
+        private final String key;
+        private final Supplier<Flux<String>> generation;
+        private final Deque<Frame> buffer = new ArrayDeque<>();
+        private final List<Sinks.Many<Frame>> listeners = new ArrayList<>();
+        private long bufferedBytes;
+        private long lastSeq;
+        private Throwable error;
+        private Disposable upstream;
+        private Disposable graceTask;
+        private boolean completed;
+        private boolean cancelled;
+        private long lastActive = System.nanoTime();
+
+        Entry(String id, String key, Supplier<Flux<String>> generation) {
+            this.id = id;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        // fallback 是本次请求的上游，无法续传时用它重新生成
+        Flux<ServerSentEvent<String>> connect(long afterSeq, Supplier<Flux<String>> fallback) {
+            return Flux.defer(() -> {
+                Sinks.Many<Frame> listener = Sinks.many().unicast().onBackpressureBuffer();
+                if (!retain(afterSeq, listener)) {
+                    // 宽限期已过、上游已取消，或断点已被挤出回放缓冲，只能重新生成
+                    LOGGER.info("SSE 流 {} 无法从第 {} 帧之后续传，重新生成", id, afterSeq);
+                    return reset(open(key, fallback));
+                }
+                return listener.asFlux()
+                    .map(frame -> ServerSentEvent.builder(frame.text()).id(id + ":" + frame.seq()).build())
+                    .doFinally(signal -> release(listener));
+            });
+        }
+
+        private synchronized boolean retain(long afterSeq, Sinks.Many<Frame> listener) {
+            long oldest = buffer.isEmpty() ? lastSeq + 1 : buffer.peekFirst().seq();
+            if (cancelled || afterSeq > lastSeq || afterSeq + 1 < oldest) {
+                return false;
+            }
+            lastActive = System.nanoTime();
+            for (Frame frame : buffer) {
+                if (frame.seq() > afterSeq) {
+                    listener.tryEmitNext(frame);
+                }
+            }
+            if (completed) {
+                terminate(listener);
+                return true;
+            }
+            listeners.add(listener);
+            if (graceTask != null) {
+                graceTask.dispose();
+                graceTask = null;
+            }
+            if (upstream == null) {
+                upstream = generation.get().subscribe(this::emit, this::fail, this::finish);
+            }
+            return true;
+        }
+
+        private synchronized void emit(String text) {
+            Frame frame = new Frame(++lastSeq, text, text.getBytes(StandardCharsets.UTF_8).length);
+            buffer.addLast(frame);
+            bufferedBytes += frame.bytes();
+            // 至少保留最新一帧，超出条数或字节上限时丢弃最早的帧
+            while (buffer.size() > 1 && (buffer.size() > maxEvents || bufferedBytes > maxBytes)) {
+                bufferedBytes -= buffer.removeFirst().bytes();
+            }
+            listeners.forEach(listener -> listener.tryEmitNext(frame));
+        }
+
+        private synchronized void fail(Throwable e) {
+            error = e;
+            finish();
+        }
+
+        private synchronized void finish() {
+            completed = true;
+            lastActive = System.nanoTime();
+            if (graceTask != null) {
+                graceTask.dispose();
+                graceTask = null;
+            }
+            listeners.forEach(this::terminate);
+            listeners.clear();
+        }
+
+        private void terminate(Sinks.Many<Frame> listener) {
+            if (error != null) {
+                listener.tryEmitError(error);
+            } else {
+                listener.tryEmitComplete();
+            }
+        }
+
+        private synchronized void release(Sinks.Many<Frame> listener) {
+            listeners.remove(listener);
+            lastActive = System.nanoTime();
+            if (listeners.isEmpty() && !completed && !cancelled && graceTask == null) {
+                graceTask = scheduler.schedule(this::cancelIfIdle, gracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void cancelIfIdle() {
+            if (listeners.isEmpty() && !completed && !cancelled) {
+                cancelled = true;
+                if (upstream != null) {
+                    upstream.dispose();
+                }
+                buffer.clear();
+                entries.remove(id, this);
+                LOGGER.info("SSE 流 {} 在 {}ms 宽限期内无人重连，已取消生成", id, gracePeriod.toMillis());
+            }
+        }
+
+        synchronized boolean isCompleted() {
+            return completed;
+        }
+
+        synchronized long lastActive() {
+            return lastActive;
+        }
+
+        // 已完成且超过 ttl 无人访问；从未被订阅过的流同样按 ttl 清理
+        synchronized boolean isExpired(long now) {
+            boolean idle = completed || (upstream == null && listeners.isEmpty());
+            return idle && now - lastActive > ttl.toNanos();
+        }
+    }
+}
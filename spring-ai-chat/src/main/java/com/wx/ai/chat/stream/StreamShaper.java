@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.stream;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 流整形：把逐 token 的输出合并成较大的帧，并在长时间无输出时发送心跳注释。
+ * <p>
+ * 合并规则：首个 token 立即下发（不影响首字延迟），之后的 token 先进缓冲区，
+ * 缓冲满 {@code maxChars} 个字符或距第一个未下发 token 超过 {@code flushInterval} 时整体下发。
+ * 只做拼接、从不切分 token，因此不会拆开代理对或多字节字符。
+ * <p>
+ * 心跳：距上一帧超过 {@code heartbeat} 仍无输出时（如模型 prefill、检索较慢）发送 SSE 注释行
+ * {@code :heartbeat}，浏览器 EventSource 会忽略它，但 Nginx 等代理不会因空闲超时断开连接。
+ */
+public class StreamShaper {
+
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final Duration flushInterval;
+    private final int maxChars;
+    private final Duration heartbeat;
+    private final Scheduler scheduler;
+
+    public StreamShaper(Duration flushInterval, int maxChars, Duration heartbeat) {
+        this(flushInterval, maxChars, heartbeat, Schedulers.parallel());
+    }
+
+    public StreamShaper(Duration flushInterval, int maxChars, Duration heartbeat, Scheduler scheduler) {
+        this.flushInterval = flushInterval;
+        this.maxChars = maxChars;
+        this.heartbeat = heartbeat;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 合并 token 并包装为 SSE 事件，附带空闲心跳
+     */
+    public Flux<ServerSentEvent<String>> shape(Flux<String> tokens) {
+        return withHeartbeat(coalesce(tokens).map(text -> ServerSentEvent.builder(text).build()));
+    }
+
+    /**
+     * 按时间和长度合并 token；flushInterval 为 0 或 maxChars 不大于 1 时原样透传（过滤空串）
+     */
+    public Flux<String> coalesce(Flux<String> tokens) {
+        Flux<String> nonEmpty = tokens.filter(token -> !token.isEmpty());
+        if (flushInterval.isZero() || flushInterval.isNegative() || maxChars <= 1) {
+            return nonEmpty;
+        }
+        return Flux.create(sink -> {
+            Coalescer coalescer = new Coalescer(sink);
+            Disposable upstream = nonEmpty.subscribe(coalescer::onToken, coalescer::onError, coalescer::onComplete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                coalescer.cancelTimer();
+            });
+        });
+    }
+
+    /**
+     * 在事件流中插入空闲心跳；心跳计时在每个事件之后重新开始，上游结束后心跳随之停止
+     */
+    public <T> Flux<ServerSentEvent<T>> withHeartbeat(Flux<ServerSentEvent<T>> events) {
+        if (heartbeat.isZero() || heartbeat.isNegative()) {
+            return events;
+        }
+        return events.publish(shared -> {
+            Flux<ServerSentEvent<T>> heartbeats = shared.map(event -> Boolean.TRUE)
+                .startWith(Boolean.TRUE)
+                .switchMap(ignored -> Flux.interval(heartbeat, heartbeat, scheduler))
+                .map(tick -> ServerSentEvent.<T>builder().comment(HEARTBEAT_COMMENT).build())
+                .takeUntilOther(shared.ignoreElements());
+            return Flux.merge(shared, heartbeats);
+        });
+    }
+
+    /**
+     * 单个流的合并状态。上游回调与定时刷新可能并发，所有读写都在 this 上加锁，
+     * 下发也在锁内进行以保证帧的顺序。
+     */
+    private final class Coalescer {
+
+        private final FluxSink<String> sink;
+        private final StringBuilder buffer = new StringBuilder(maxChars * 2);
+        private boolean first = true;
+        private boolean done;
+        private Disposable timer;
+        // 每次下发后递增，已被取消但仍在排队的定时任务据此识别自己已过期
+        private long generation;
+
+        Coalescer(FluxSink<String> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void onToken(String token) {
+            if (done) {
+                return;
+            }
+            if (first) {
+                first = false;
+                sink.next(token);
+                return;
+            }
+            buffer.append(token);
+            if (buffer.length() >= maxChars) {
+                flush();
+            } else if (timer == null) {
+                long scheduled = generation;
+                timer = scheduler.schedule(() -> onTimer(scheduled), flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void onError(Throwable error) {
+            if (!done) {
+                flush();
+                done = true;
+                sink.error(error);
+            }
+        }
+
+        synchronized void onComplete() {
+            if (!done) {
+                flush();
+                done = true;
+                sink.complete();
+            }
+        }
+
+        synchronized void cancelTimer() {
+            done = true;
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+        }
+
+        private synchronized void onTimer(long scheduled) {
+            if (!done && scheduled == generation) {
+                timer = null;
+                flush();
+            }
+        }
+
+        private void flush() {
+            generation++;
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            if (!buffer.isEmpty()) {
+                sink.next(buffer.toString());
+                buffer.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.advisor;
+
+import com.wx.ai.chat.benchmark.StubChatModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Advisor 开销：MyLoggingAdvisor 的 JSON 序列化，SelfRefineEvaluationAdvisor 的评估循环
+ * （evaluationRating=4 首次通过；=1 时跑满 maxRepeatAttempts 次重试），以及 getPromptQuestion 的字符串拼接。
+ * 与 Advisor 同包，以便直接调用包内可见的 getPromptQuestion。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdvisorBenchmark {
+
+    @Param({"2", "20"})
+    public int historySize;
+
+    @Param({"4", "1"})
+    public int evaluationRating;
+
+    private MyLoggingAdvisor loggingAdvisor;
+    private SelfRefineEvaluationAdvisor selfRefineAdvisor;
+    private ChatClient selfRefineClient;
+    private ChatClientRequest request;
+    private ChatClientResponse response;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setup() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        StubChatModel chatModel = new StubChatModel(64, evaluationRating);
+        loggingAdvisor = new MyLoggingAdvisor(2);
+        selfRefineAdvisor = SelfRefineEvaluationAdvisor.builder()
+            .chatClientBuilder(ChatClient.builder(chatModel))
+            .maxRepeatAttempts(3)
+            .successRating(4)
+            .build();
+        selfRefineClient = ChatClient.builder(chatModel)
+            .defaultSystem("你是一个专业的气象助手。")
+            .defaultAdvisors(selfRefineAdvisor)
+            .build();
+
+        List<Message> messages = new ArrayList<>();
+        messages.add(new SystemMessage("你是一个专业的气象助手。"));
+        for (int i = 0; i < historySize; i++) {
+            messages.add(i % 2 == 0
+                ? new UserMessage("请查询 北京 的天气，并友好地回复用户。第 " + i + " 轮")
+                : new AssistantMessage("北京今天晴，气温 15°C，适合出行。第 " + i + " 轮"));
+        }
+        Prompt prompt = new Prompt(messages);
+        request = ChatClientRequest.builder().prompt(prompt).build();
+        response = ChatClientResponse.builder().chatResponse(chatModel.call(prompt)).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public ChatClientRequest loggingAdvisorBefore() {
+        return loggingAdvisor.before(request, null);
+    }
+
+    @Benchmark
+    public ChatClientResponse loggingAdvisorAfter() {
+        return loggingAdvisor.after(response, null);
+    }
+
+    @Benchmark
+    public String getPromptQuestion() {
+        return selfRefineAdvisor.getPromptQuestion(request);
+    }
+
+    @Benchmark
+    public String selfRefineCall() {
+        return selfRefineClient.prompt().user("请查询 北京 的天气，并友好地回复用户。").call().content();
+    }
+}
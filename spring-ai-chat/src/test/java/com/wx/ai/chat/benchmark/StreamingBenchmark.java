@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.benchmark;
+
+import com.wx.ai.chat.advisor.MyLoggingAdvisor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactor Flux 流式链路的每 token 开销：
+ * 裸 ChatModel.stream、ChatClient.stream().content()（对应 WeatherService.doWorkStream），
+ * 以及挂上 MyLoggingAdvisor 后的开销（流式时每个 token 都会序列化打印一次）。
+ * 结果按 token 计（@OperationsPerInvocation）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingBenchmark {
+
+    private static final int TOKENS = 256;
+
+    private StubChatModel chatModel;
+    private Prompt prompt;
+    private ChatClient plainClient;
+    private ChatClient loggingClient;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setup() {
+        // MyLoggingAdvisor 直接写 System.out，重定向掉以免终端 IO 淹没测量结果
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        chatModel = new StubChatModel(TOKENS, 4);
+        prompt = new Prompt(new UserMessage("你好！请查询 北京 的天气，并以友好的态度回复用户。"));
+        plainClient = ChatClient.builder(chatModel).build();
+        loggingClient = ChatClient.builder(chatModel).defaultAdvisors(new MyLoggingAdvisor(2)).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public ChatResponse modelStream() {
+        return chatModel.stream(prompt).blockLast();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public String chatClientStream() {
+        return plainClient.prompt(prompt).stream().content().blockLast();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKENS)
+    public String chatClientStreamWithLogging() {
+        return loggingClient.prompt(prompt).stream().content().blockLast();
+    }
+}
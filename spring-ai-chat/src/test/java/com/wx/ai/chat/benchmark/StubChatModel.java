@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 the original author or authors. All rights reserved.
+ *
+ * @author wangxu
+ * @since 2026
+ */
+package com.wx.ai.chat.benchmark;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 离线 ChatModel：不访问 DeepSeek，也不引入任何延迟，测到的只有框架与业务代码本身的开销。
+ * 识别到 SelfRefineEvaluationAdvisor 的评估提示时，返回固定评分的评估 JSON。
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final String[] TOKENS = {"北京", "今天", "晴", "，", "气温", "15", "°C", "，", "适合", "出行", "。"};
+
+    private final int tokens;
+    private final String evaluation;
+
+    public StubChatModel(int tokens, int evaluationRating) {
+        this.tokens = tokens;
+        this.evaluation = "{\"rating\": " + evaluationRating
+            + ", \"evaluation\": \"stub evaluation\", \"feedback\": \"stub feedback\"}";
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (prompt.getContents().contains("assistant_answer")) {
+            return response(evaluation);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            sb.append(TOKENS[i % TOKENS.length]);
+        }
+        return response(sb.toString());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.range(0, tokens).map(i -> response(TOKENS[i % TOKENS.length]));
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -6,14 +6,20 @@
  */
 package com.wx.rag;
 
+import com.wx.rag.config.SnapshotRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class RagApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(RagApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(RagApplication.class, args);
+        // 一次性的快照备份/恢复任务：完成后关闭上下文，以 ExitCodeGenerator 给出的退出码结束进程
+        if (context.getBean(SnapshotRunner.class).shouldExit()) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
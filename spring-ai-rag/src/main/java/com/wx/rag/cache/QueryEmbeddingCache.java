@@ -0,0 +1,84 @@
+package com.wx.rag.cache;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最近问题的向量：一次请求里同一个问题会被多处向量化（Milvus 检索、答案缓存、降级查询），只有第一次调用模型。
+ * <p>
+ * 只缓存单条文本的 {@code embed(String)}，入库的批量向量直接透传。按最近使用淘汰，条目数有上限。
+ */
+public class QueryEmbeddingCache {
+
+    private final EmbeddingModel delegate;
+    private final int maxEntries;
+    private final Map<String, float[]> recent = new LinkedHashMap<>(16, 0.75f, true);
+
+    public QueryEmbeddingCache(EmbeddingModel delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+    }
+
+    public float[] embed(String text) {
+        synchronized (this) {
+            float[] cached = recent.get(text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // 模型调用不持锁，并发的同一问题最多重复向量化一次
+        float[] embedding = delegate.embed(text);
+        synchronized (this) {
+            recent.put(text, embedding);
+            Iterator<float[]> iterator = recent.values().iterator();
+            while (recent.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return embedding;
+    }
+
+    /**
+     * 交给向量库使用的 EmbeddingModel：检索时的问题向量走缓存，其余调用透传
+     */
+    public EmbeddingModel asEmbeddingModel() {
+        return new EmbeddingModel() {
+
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                return delegate.call(request);
+            }
+
+            @Override
+            public float[] embed(String text) {
+                return QueryEmbeddingCache.this.embed(text);
+            }
+
+            @Override
+            public float[] embed(Document document) {
+                return delegate.embed(document);
+            }
+
+            @Override
+            public List<float[]> embed(List<Document> documents, EmbeddingOptions options,
+                BatchingStrategy batchingStrategy) {
+                return delegate.embed(documents, options, batchingStrategy);
+            }
+
+            @Override
+            public int dimensions() {
+                return delegate.dimensions();
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.wx.rag.cache;
+
+import com.wx.rag.resilience.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 语义答案缓存：只在降级时使用，生成服务不可用或时间不够时返回相似问题的历史回答。
+ * <p>
+ * 只应写入不依赖会话上下文的回答（由调用方判断），否则一个会话的回答会被别的会话复用。
+ * 写入在回答完整生成后进行，直接使用检索阶段得到的问题向量，不再重复向量化（没有向量时只能精确匹配）；
+ * 查询先按规范化后的问题精确匹配，再在向量可用时按余弦相似度匹配。
+ * 按最近使用淘汰，条目数有上限，过期条目在访问时清理。
+ */
+@Slf4j
+public class SemanticAnswerCache {
+
+    private final QueryEmbeddingCache queryEmbeddings;
+    private final CircuitBreaker ollamaBreaker;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final double similarityThreshold;
+    private final Map<String, Entry> entries;
+
+    public SemanticAnswerCache(QueryEmbeddingCache queryEmbeddings, CircuitBreaker ollamaBreaker, int maxEntries,
+        Duration ttl, double similarityThreshold) {
+        this.queryEmbeddings = queryEmbeddings;
+        this.ollamaBreaker = ollamaBreaker;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.similarityThreshold = similarityThreshold;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 保存一条完整回答
+     *
+     * @param embedding 检索时得到的问题向量，为空时只能精确匹配
+     */
+    public void put(String query, float[] embedding, String answer) {
+        String key = normalize(query);
+        if (key.isEmpty() || answer.isBlank()) {
+            return;
+        }
+        store(key, new Entry(embedding, answer, System.nanoTime()));
+    }
+
+    /**
+     * 查找相似问题的回答；已有问题向量时直接使用，否则向量化最多等待 {@code embedTimeout}，
+     * 生成服务熔断时跳过语义匹配
+     */
+    public Optional<String> lookup(String query, float[] embedding, Duration embedTimeout) {
+        String key = normalize(query);
+        synchronized (this) {
+            evictExpired();
+            Entry exact = entries.get(key);
+            if (exact != null) {
+                return Optional.of(exact.answer());
+            }
+            if (entries.isEmpty()) {
+                return Optional.empty();
+            }
+        }
+        if (embedding == null) {
+            embedding = embed(query, embedTimeout);
+        }
+        if (embedding == null) {
+            return Optional.empty();
+        }
+        Entry best = null;
+        double bestScore = similarityThreshold;
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                if (entry.embedding() == null) {
+                    continue;
+                }
+                double score = cosine(embedding, entry.embedding());
+                if (score >= bestScore) {
+                    best = entry;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best != null) {
+            log.info("降级命中语义缓存，相似度 {}", String.format("%.3f", bestScore));
+        }
+        return Optional.ofNullable(best).map(Entry::answer);
+    }
+
+    private float[] embed(String query, Duration embedTimeout) {
+        // 向量和生成共用 Ollama，熔断打开时向量化大概率也会失败，不再白等
+        if (!ollamaBreaker.isClosed() || embedTimeout.isZero()) {
+            return null;
+        }
+        try {
+            return Mono.fromCallable(() -> queryEmbeddings.embed(query))
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(embedTimeout)
+                .block();
+        } catch (Exception e) {
+            log.debug("降级查询缓存时问题向量化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        entries.put(key, entry);
+        evictExpired();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.createdAt() > ttlNanos);
+    }
+
+    static String normalize(String query) {
+        StringBuilder normalized = new StringBuilder(query.length());
+        query.toLowerCase(Locale.ROOT).codePoints()
+            .filter(Character::isLetterOrDigit)
+            .forEach(normalized::appendCodePoint);
+        return normalized.toString();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    private record Entry(float[] embedding, String answer, long createdAt) {
+    }
+}
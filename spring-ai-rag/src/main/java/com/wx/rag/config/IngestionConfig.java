@@ -0,0 +1,47 @@
+package com.wx.rag.config;
+
+import com.wx.rag.ingestion.CjkTextSplitter;
+import com.wx.rag.ingestion.MemoryBudget;
+import org.apache.tika.parser.AutoDetectParser;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfig {
+
+    // 全局共享：所有并行解析从同一个池子里申请内存
+    @Bean
+    public MemoryBudget ingestionMemoryBudget(IngestionProperties properties) {
+        return new MemoryBudget(properties.getMemoryBudgetMb() * 1024L * 1024L);
+    }
+
+    // 无状态、线程安全，流式与整篇两种模式共用
+    @Bean
+    public CjkTextSplitter textSplitter(IngestionProperties properties) {
+        return new CjkTextSplitter(properties.getChunkTokens(), properties.getOverlapTokens(),
+            properties.getMinChunkChars(), properties.getMaxNumChunks());
+    }
+
+    // 上传文件的解析线程：线程数即同时解析的文件数上限，超出的文件排队
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ingestionExecutor(IngestionProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // AutoDetectParser 线程安全，初始化时要扫描全部 Parser，只建一次
+    @Bean
+    public AutoDetectParser tikaParser() {
+        return new AutoDetectParser();
+    }
+}
@@ -0,0 +1,63 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 文档入库参数（rag.ingestion.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.ingestion")
+public class IngestionProperties {
+
+    /**
+     * true：上传文件先落盘，再用 Tika SAX 流式解析 + 滑动窗口切片，内存与文件大小无关；
+     * false：沿用 TikaDocumentReader 整篇读入内存的旧流程
+     */
+    private boolean streaming = true;
+
+    /**
+     * 单个切片的目标 token 数（按 TokenEstimator 估算）
+     */
+    private int chunkTokens = 400;
+
+    /**
+     * 相邻切片的重叠 token 数，必须小于 chunkTokens 的一半
+     */
+    private int overlapTokens = 50;
+
+    /**
+     * 小于该长度的切片直接丢弃（与原 TokenTextSplitter 的 minChunkLengthToEmbed 一致）
+     */
+    private int minChunkChars = 5;
+
+    /**
+     * 单个文档最多切出的片数（整篇读入模式）
+     */
+    private int maxNumChunks = 10000;
+
+    /**
+     * 每批写入向量库的切片数：每批 32 条最稳健，防止远程请求超时
+     */
+    private int batchSize = 32;
+
+    /**
+     * 同时解析的文件数（独立线程池的线程数）
+     */
+    private int parallelism = 2;
+
+    /**
+     * 所有并行解析共享的内存预算（MB），超出预算的文件排队等待
+     */
+    private int memoryBudgetMb = 256;
+
+    /**
+     * 单个文件解析时 Tika 内部结构（PDF 对象树、字体等）的预估开销（MB），计入预算
+     */
+    private int parserOverheadMb = 32;
+
+    /**
+     * 上传文件的落盘目录，为空则使用 java.io.tmpdir
+     */
+    private String spoolDir;
+}
@@ -0,0 +1,59 @@
+package com.wx.rag.config;
+
+import com.wx.rag.ollama.LatencyTracker;
+import com.wx.rag.ollama.OllamaNode;
+import com.wx.rag.ollama.OllamaNodePool;
+import com.wx.rag.ollama.PooledOllamaApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(OllamaPoolProperties.class)
+public class OllamaPoolConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OllamaPoolConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public OllamaNodePool ollamaNodePool(OllamaPoolProperties properties,
+        @Value("${spring.ai.ollama.base-url:http://localhost:11434}") String baseUrl,
+        ObjectProvider<RestClient.Builder> restClientBuilder, ObjectProvider<WebClient.Builder> webClientBuilder) {
+        List<String> endpoints = properties.getEndpoints().stream()
+            .filter(StringUtils::hasText)
+            .map(String::trim)
+            .distinct()
+            .toList();
+        if (endpoints.isEmpty()) {
+            endpoints = List.of(baseUrl);
+        }
+        RestClient.Builder restClient = restClientBuilder.getIfAvailable(RestClient::builder);
+        WebClient.Builder webClient = webClientBuilder.getIfAvailable(WebClient::builder);
+        // OllamaApi 会在传入的 Builder 上设置 baseUrl，每个节点必须用各自的副本
+        List<OllamaNode> nodes = endpoints.stream()
+            .map(url -> new OllamaNode(url, new OllamaApi(url, restClient.clone(), webClient.clone())))
+            .toList();
+        LOGGER.info(">>>>>> [OLLAMA] 节点: {}", endpoints);
+        return new OllamaNodePool(nodes, properties.getHealthInterval(), properties.getHealthTimeout(),
+            properties.getFailureThreshold(), properties.getEjection());
+    }
+
+    // 替换自动配置的单地址 OllamaApi（@ConditionalOnMissingBean），对话与向量模型都走节点池
+    @Bean
+    public OllamaApi ollamaApi(OllamaNodePool pool, OllamaPoolProperties properties) {
+        OllamaPoolProperties.Hedge hedge = properties.getHedge();
+        PooledOllamaApi.HedgePolicy embedding = new PooledOllamaApi.HedgePolicy(hedge.isEmbedding(),
+            new LatencyTracker(hedge.getWindow(), hedge.getMinSamples()), hedge.getPercentile(), hedge.getMinDelay());
+        PooledOllamaApi.HedgePolicy firstToken = new PooledOllamaApi.HedgePolicy(hedge.isFirstToken(),
+            new LatencyTracker(hedge.getWindow(), hedge.getMinSamples()), hedge.getPercentile(), hedge.getMinDelay());
+        return new PooledOllamaApi(pool, embedding, firstToken);
+    }
+}
@@ -0,0 +1,77 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多节点 Ollama 参数（rag.ollama.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.ollama")
+public class OllamaPoolProperties {
+
+    /**
+     * Ollama 节点地址列表，为空时使用 spring.ai.ollama.base-url 单节点
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * 健康检查间隔（GET /api/tags），设为 0 关闭
+     */
+    private Duration healthInterval = Duration.ofSeconds(5);
+
+    /**
+     * 健康检查的连接/读取超时
+     */
+    private Duration healthTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 业务请求连续失败多少次摘除节点
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 摘除时长，到期后健康检查通过才恢复
+     */
+    private Duration ejection = Duration.ofSeconds(30);
+
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 检索时的问题向量超过分位数耗时仍未返回，向另一个节点再发一次
+         */
+        private boolean embedding = false;
+
+        /**
+         * 流式对话超过分位数首字耗时仍没有首个 token，向另一个节点再发一次
+         */
+        private boolean firstToken = false;
+
+        /**
+         * 触发对冲的耗时分位数
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲延迟下限，避免耗时很短时频繁对冲
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+
+        /**
+         * 统计耗时的滑动窗口大小
+         */
+        private int window = 200;
+
+        /**
+         * 窗口内样本数达到该值才开始对冲
+         */
+        private int minSamples = 20;
+    }
+}
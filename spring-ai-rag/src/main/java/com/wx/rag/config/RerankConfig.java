@@ -0,0 +1,42 @@
+package com.wx.rag.config;
+
+import com.wx.rag.rerank.LexicalReranker;
+import com.wx.rag.rerank.OnnxCrossEncoderReranker;
+import com.wx.rag.rerank.Reranker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(RetrievalProperties.class)
+public class RerankConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RerankConfig.class);
+
+    // 配置了模型且文件存在时用交叉编码器，否则（或加载失败）退回词法重排
+    @Bean
+    public Reranker reranker(RetrievalProperties properties) {
+        RetrievalProperties.Rerank rerank = properties.getRerank();
+        if (StringUtils.hasText(rerank.getModelPath()) && StringUtils.hasText(rerank.getTokenizerPath())) {
+            Path model = Path.of(rerank.getModelPath());
+            Path tokenizer = Path.of(rerank.getTokenizerPath());
+            if (Files.isReadable(model) && Files.isReadable(tokenizer)) {
+                try {
+                    return new OnnxCrossEncoderReranker(model, tokenizer, rerank.getMaxLength(),
+                        rerank.getBatchSize(), rerank.getThreads());
+                } catch (Exception e) {
+                    LOGGER.warn(">>>>>> [RERANK] 交叉编码器加载失败，改用词法重排: {}", e.getMessage());
+                }
+            } else {
+                LOGGER.warn(">>>>>> [RERANK] 模型文件不可读: {} / {}，改用词法重排", model, tokenizer);
+            }
+        }
+        LOGGER.info(">>>>>> [RERANK] 使用词法重排 (BM25 + RRF)");
+        return new LexicalReranker();
+    }
+}
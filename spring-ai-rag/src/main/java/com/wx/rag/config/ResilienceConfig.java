@@ -0,0 +1,43 @@
+package com.wx.rag.config;
+
+import com.wx.rag.cache.QueryEmbeddingCache;
+import com.wx.rag.cache.SemanticAnswerCache;
+import com.wx.rag.resilience.CircuitBreaker;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    // 检索：问题向量化 + Milvus 查询
+    @Bean
+    public CircuitBreaker milvusBreaker(ResilienceProperties properties) {
+        ResilienceProperties.Breaker breaker = properties.getBreaker();
+        return new CircuitBreaker("milvus", breaker.getFailureThreshold(), breaker.getOpenDuration());
+    }
+
+    // 生成：Ollama 流式对话
+    @Bean
+    public CircuitBreaker ollamaBreaker(ResilienceProperties properties) {
+        ResilienceProperties.Breaker breaker = properties.getBreaker();
+        return new CircuitBreaker("ollama", breaker.getFailureThreshold(), breaker.getOpenDuration());
+    }
+
+    // 检索、答案缓存共用，同一个问题只向量化一次
+    @Bean
+    public QueryEmbeddingCache queryEmbeddingCache(EmbeddingModel embeddingModel, ResilienceProperties properties) {
+        return new QueryEmbeddingCache(embeddingModel, properties.getCache().getRecentEmbeddings());
+    }
+
+    @Bean
+    public SemanticAnswerCache semanticAnswerCache(QueryEmbeddingCache queryEmbeddings,
+        @Qualifier("ollamaBreaker") CircuitBreaker ollamaBreaker, ResilienceProperties properties) {
+        ResilienceProperties.Cache cache = properties.getCache();
+        return new SemanticAnswerCache(queryEmbeddings, ollamaBreaker, cache.getMaxEntries(), cache.getTtl(),
+            cache.getSimilarityThreshold());
+    }
+}
@@ -0,0 +1,82 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 请求截止时间、熔断与降级参数（rag.resilience.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.resilience")
+public class ResilienceProperties {
+
+    /**
+     * 单次问答的总截止时间，检索、重排、生成共用；到点后截断回答并释放连接
+     */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 向量检索（问题向量化 + Milvus 查询）的超时
+     */
+    private Duration retrievalTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 首个 token 的超时，包含模型 prefill
+     */
+    private Duration firstTokenTimeout = Duration.ofSeconds(15);
+
+    /**
+     * 相邻两个 token 之间的超时，超过即认为生成卡死
+     */
+    private Duration interTokenTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 剩余时间不足该值时不再调用大模型，直接降级
+     */
+    private Duration minGenerationTime = Duration.ofSeconds(3);
+
+    private Breaker breaker = new Breaker();
+
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Breaker {
+
+        /**
+         * 连续失败多少次打开熔断
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 熔断打开时长，之后放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        private int maxEntries = 500;
+
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * 问题向量的余弦相似度达到该值才视为同一问题
+         */
+        private double similarityThreshold = 0.92;
+
+        /**
+         * 降级查询缓存时问题向量化的最长等待
+         */
+        private Duration embedTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 最近问题向量的缓存条数，检索与答案缓存共用，避免同一问题重复向量化
+         */
+        private int recentEmbeddings = 256;
+    }
+}
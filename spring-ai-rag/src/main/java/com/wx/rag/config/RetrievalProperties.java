@@ -0,0 +1,63 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 检索与重排参数（rag.retrieval.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.retrieval")
+public class RetrievalProperties {
+
+    /**
+     * 向量检索召回的候选数：多召回、再重排，召回率不再受 LLM 上下文长度限制
+     */
+    private int candidateK = 20;
+
+    /**
+     * 重排后真正送进 Prompt 的片段数：片段越少，小模型 prefill 越快
+     */
+    private int topN = 2;
+
+    /**
+     * 向量相似度阈值，过滤杂音
+     */
+    private double similarityThreshold = 0.5;
+
+    private Rerank rerank = new Rerank();
+
+    @Data
+    public static class Rerank {
+
+        /**
+         * 重排耗时预算（毫秒）：超出预算时未打分的候选按向量检索顺序排在后面
+         */
+        private long budgetMs = 150;
+
+        /**
+         * 交叉编码器 ONNX 模型路径（如 bge-reranker-base 导出的 model.onnx），为空则使用词法重排
+         */
+        private String modelPath;
+
+        /**
+         * 与模型配套的 HuggingFace tokenizer.json 路径
+         */
+        private String tokenizerPath;
+
+        /**
+         * 问题 + 片段拼接后的最大 token 数，超出部分只截断片段
+         */
+        private int maxLength = 256;
+
+        /**
+         * 每次推理的候选数，批次之间检查耗时预算
+         */
+        private int batchSize = 4;
+
+        /**
+         * ONNX Runtime 推理线程数，2 核机器上不要超过 2
+         */
+        private int threads = 2;
+    }
+}
@@ -0,0 +1,17 @@
+package com.wx.rag.config;
+
+import com.wx.rag.service.SnapshotService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfig {
+
+    // 在 ApplicationReadyEvent 之前执行：导入完成前应用不算就绪，新副本不会带着空库接流量
+    @Bean
+    public SnapshotRunner snapshotRunner(SnapshotService snapshotService, SnapshotProperties properties) {
+        return new SnapshotRunner(snapshotService, properties);
+    }
+}
@@ -0,0 +1,41 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量快照导出/导入参数（rag.snapshot.*），通过启动参数触发：
+ * <pre>
+ * java -jar spring-ai-rag.jar --rag.snapshot.export-to=/backup/policy_docs.snap --rag.snapshot.exit-after=true
+ * java -jar spring-ai-rag.jar --rag.snapshot.import-from=/backup/policy_docs.snap
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * 启动时把向量库导出到该文件；为空不导出
+     */
+    private String exportTo;
+
+    /**
+     * 启动时从该文件导入向量库（按文档 ID 覆盖写入，可重复执行）；为空不导入。导入完成前应用不会就绪
+     */
+    private String importFrom;
+
+    /**
+     * 每批查询/写入 Milvus 的行数，也是快照文件的块大小；Milvus 单次查询上限 16384
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 快照数据块是否用 Deflate 压缩
+     */
+    private boolean compress = true;
+
+    /**
+     * 导出/导入完成后退出进程，用于一次性的备份、恢复任务
+     */
+    private boolean exitAfter = false;
+}
@@ -0,0 +1,57 @@
+package com.wx.rag.config;
+
+import com.wx.rag.service.SnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+/**
+ * 启动时按 rag.snapshot.* 执行导出/导入。
+ * <p>
+ * 不在这里结束进程：是否退出由 {@link #shouldExit()} 告诉 main，退出码经 {@link ExitCodeGenerator} 交给
+ * {@code SpringApplication.exit}。导出/导入失败时异常向上抛出，应用启动失败，进程以非零码退出。
+ */
+public class SnapshotRunner implements ApplicationRunner, ExitCodeGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotRunner.class);
+
+    private final SnapshotService snapshotService;
+    private final SnapshotProperties properties;
+    private volatile boolean completed;
+
+    public SnapshotRunner(SnapshotService snapshotService, SnapshotProperties properties) {
+        this.snapshotService = snapshotService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        boolean importing = StringUtils.hasText(properties.getImportFrom());
+        boolean exporting = StringUtils.hasText(properties.getExportTo());
+        if (importing) {
+            LOGGER.info(">>>>>> [SNAPSHOT] 从快照导入: {}", properties.getImportFrom());
+            snapshotService.importFrom(Path.of(properties.getImportFrom()));
+        }
+        if (exporting) {
+            LOGGER.info(">>>>>> [SNAPSHOT] 导出快照: {}", properties.getExportTo());
+            snapshotService.exportTo(Path.of(properties.getExportTo()));
+        }
+        completed = importing || exporting;
+    }
+
+    /**
+     * 执行过导出/导入且配置了 exit-after，应用应当在启动后退出
+     */
+    public boolean shouldExit() {
+        return completed && properties.isExitAfter();
+    }
+
+    @Override
+    public int getExitCode() {
+        return 0;
+    }
+}
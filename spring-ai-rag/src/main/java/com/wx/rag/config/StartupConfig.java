@@ -0,0 +1,69 @@
+package com.wx.rag.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 把 Milvus 客户端、Tika、重排模型移出启动关键路径：Bean 定义改为延迟初始化，
+ * 注入处使用 {@code @Lazy} 代理，应用就绪后再在后台线程创建。
+ * <p>
+ * 使用 Spring AOT（-Pfast-start）时 Bean 定义在构建期生成，修改 rag.startup.lazy-beans 需要重新构建。
+ */
+@Configuration
+@EnableConfigurationProperties(StartupProperties.class)
+public class StartupConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupConfig.class);
+
+    // 必须是 static：BeanFactoryPostProcessor 先于普通 Bean 执行，此时属性类还没有绑定，直接从 Environment 读取
+    @Bean
+    public static BeanFactoryPostProcessor lazyHeavyBeans(Environment environment) {
+        StartupProperties properties = Binder.get(environment).bind("rag.startup", StartupProperties.class)
+            .orElseGet(StartupProperties::new);
+        return beanFactory -> {
+            for (String name : properties.getLazyBeans()) {
+                if (beanFactory.containsBeanDefinition(name)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                } else {
+                    LOGGER.warn(">>>>>> [STARTUP] 延迟初始化的 Bean 不存在: {}", name);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> lazyBeanWarmUp(ConfigurableListableBeanFactory beanFactory,
+        StartupProperties properties) {
+        return event -> {
+            if (!properties.isWarmUp()) {
+                return;
+            }
+            Thread thread = new Thread(() -> {
+                for (String name : properties.getLazyBeans()) {
+                    if (!beanFactory.containsBeanDefinition(name)) {
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        beanFactory.getBean(name);
+                        LOGGER.info(">>>>>> [STARTUP] 预热 {} 完成，耗时 {} ms", name,
+                            (System.nanoTime() - start) / 1_000_000);
+                    } catch (Exception e) {
+                        // 创建失败不会被缓存，首次使用时会再试一次
+                        LOGGER.warn(">>>>>> [STARTUP] 预热 {} 失败，首次使用时重试: {}", name, e.getMessage());
+                    }
+                }
+            }, "lazy-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动参数（rag.startup.*）：重量级 Bean 延迟初始化与就绪后预热
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.startup")
+public class StartupProperties {
+
+    /**
+     * 延迟初始化的 Bean 名称：Milvus 客户端（建连 + 建集合）、Tika（扫描全部 Parser）、重排模型（加载 ONNX）
+     */
+    private List<String> lazyBeans = new ArrayList<>(List.of("milvusClient", "vectorStore", "tikaParser", "reranker"));
+
+    /**
+     * 应用就绪后在后台线程创建上述 Bean，首个请求不用再等；关闭后在首次使用时创建
+     */
+    private boolean warmUp = true;
+}
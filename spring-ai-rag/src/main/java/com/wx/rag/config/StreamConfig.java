@@ -0,0 +1,26 @@
+package com.wx.rag.config;
+
+import com.wx.rag.stream.ResumableStreamRegistry;
+import com.wx.rag.stream.StreamShaper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StreamProperties.class)
+public class StreamConfig {
+
+    // 无状态，每个流的合并缓冲在订阅时单独创建
+    @Bean
+    public StreamShaper streamShaper(StreamProperties properties) {
+        return new StreamShaper(properties.getFlushInterval(), properties.getMaxChars(), properties.getHeartbeat());
+    }
+
+    // 回放缓冲按实例保存，多实例部署时需要负载均衡按会话粘滞，否则续传会退化为重新生成
+    @Bean
+    public ResumableStreamRegistry resumableStreamRegistry(StreamProperties properties) {
+        StreamProperties.Resume resume = properties.getResume();
+        return new ResumableStreamRegistry(resume.isEnabled(), resume.getGracePeriod(), resume.getTtl(),
+            resume.getMaxEntries(), resume.getMaxEvents(), resume.getMaxBytes());
+    }
+}
@@ -0,0 +1,65 @@
+package com.wx.rag.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * SSE 流整形参数（rag.stream.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.stream")
+public class StreamProperties {
+
+    /**
+     * 合并窗口：第一个未下发的 token 最多等待这么久，设为 0 关闭合并、逐 token 下发
+     */
+    private Duration flushInterval = Duration.ofMillis(30);
+
+    /**
+     * 缓冲达到该字符数立即下发，不等合并窗口结束
+     */
+    private int maxChars = 64;
+
+    /**
+     * 空闲心跳间隔：超过该时间无输出时发送 SSE 注释，防止代理断开长时间 prefill 的连接；设为 0 关闭
+     */
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    private Resume resume = new Resume();
+
+    @Data
+    public static class Resume {
+
+        /**
+         * 是否登记可续传的流；关闭后连接断开即取消生成，重连会重新检索和生成
+         */
+        private boolean enabled = true;
+
+        /**
+         * 所有连接断开后保留上游生成的时长，期间可带 Last-Event-ID 重连续传
+         */
+        private Duration gracePeriod = Duration.ofSeconds(30);
+
+        /**
+         * 生成完成后回放缓冲的保留时长
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * 最多登记的流数，超出时优先淘汰最早完成的流
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * 每个流回放缓冲最多保留的帧数，超出时丢弃最早的帧，断点早于缓冲的重连会重新生成
+         */
+        private int maxEvents = 2000;
+
+        /**
+         * 每个流回放缓冲最多保留的字节数（UTF-8），与 maxEvents 先到先生效
+         */
+        private long maxBytes = 256 * 1024;
+    }
+}
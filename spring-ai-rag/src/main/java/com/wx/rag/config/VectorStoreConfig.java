@@ -1,10 +1,10 @@
 package com.wx.rag.config;
 
+import com.wx.rag.cache.QueryEmbeddingCache;
 import io.milvus.client.MilvusServiceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.autoconfigure.vectorstore.milvus.MilvusVectorStoreProperties; // 你刚发给我的源码类
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.milvus.MilvusVectorStore;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -19,7 +19,7 @@ public class VectorStoreConfig {
 
     @Bean
     @Primary
-    public MilvusVectorStore vectorStore(MilvusServiceClient client, EmbeddingModel model,
+    public MilvusVectorStore vectorStore(MilvusServiceClient client, QueryEmbeddingCache queryEmbeddings,
         MilvusVectorStoreProperties properties) {
 
         // 💡 核心：直接从 properties 对象中取值，不再依赖 @Value
@@ -29,7 +29,8 @@ public class VectorStoreConfig {
         // 这里的日志会告诉你 Spring 到底读没读到 YAML
         LOGGER.info(">>>>>> [CONFIG_CHECK] 当前绑定的集合名: {}, 维度: {}", colName, dimension);
 
-        return MilvusVectorStore.builder(client, model).collectionName(colName).embeddingDimension(dimension)
+        // 检索时的问题向量走缓存，答案缓存直接复用，不再重复向量化
+        return MilvusVectorStore.builder(client, queryEmbeddings.asEmbeddingModel()).collectionName(colName).embeddingDimension(dimension)
             .initializeSchema(true).build();
     }
 
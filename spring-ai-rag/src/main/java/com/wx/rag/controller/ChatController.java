@@ -2,12 +2,20 @@ package com.wx.rag.controller;
 
 import com.wx.rag.service.IngestionService;
 import com.wx.rag.service.RagService;
+import com.wx.rag.stream.ResumableStreamRegistry;
+import com.wx.rag.stream.StreamShaper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*") // 允许前端跨域
@@ -16,20 +24,35 @@ public class ChatController {
 
     private final RagService ragService;
     private final IngestionService ingestionService;
+    private final StreamShaper streamShaper;
+    private final ResumableStreamRegistry streamRegistry;
 
-    // 流式问答接口 (SSE)
+    // 流式问答接口 (SSE)：token 合并成帧下发，检索/prefill 期间发送心跳
+    // 断线后带 Last-Event-ID（请求头或 lastEventId 参数）重连，从断点续传，不重新检索和生成
     @GetMapping(value = "/chat", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> chat(@RequestParam String query,  @RequestParam(required = false) String chatId) {
-        return ragService.streamAnswer(query, chatId);
+    public Flux<ServerSentEvent<String>> chat(@RequestParam String query,  @RequestParam(required = false) String chatId,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+        @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String resumeFrom = lastEventId != null ? lastEventId : lastEventIdParam;
+        return streamShaper.withHeartbeat(streamRegistry.attach("chat|" + chatId + "|" + query, resumeFrom,
+            () -> streamShaper.coalesce(ragService.streamAnswer(query, chatId))));
     }
 
-    // 文档上传接口
+    // 文档上传接口：有文件失败时返回 422，并列出失败的文件和原因
     @PostMapping("/upload")
-    public String upload(@RequestParam("files") MultipartFile[] files) {
+    public ResponseEntity<String> upload(@RequestParam("files") MultipartFile[] files) {
         if (files == null || files.length == 0) {
-            return "请选择文件";
+            return ResponseEntity.ok("请选择文件");
+        }
+        List<IngestionService.FileResult> results = ingestionService.processDocuments(files);
+        List<IngestionService.FileResult> failed = results.stream().filter(result -> !result.isSuccess()).toList();
+        if (failed.isEmpty()) {
+            return ResponseEntity.ok("成功处理 " + files.length + " 个文件");
         }
-        ingestionService.processDocuments(files);
-        return "成功处理 " + files.length + " 个文件";
+        String reasons = failed.stream()
+            .map(result -> result.filename() + "（" + result.error() + "）")
+            .collect(Collectors.joining("；"));
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body("成功处理 " + (files.length - failed.size()) + " 个文件，失败 " + failed.size() + " 个: " + reasons);
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.wx.rag.ingestion;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 把 Tika 的 SAX 文本事件直接送进滑动窗口切片器。
+ * 窗口每增长一片的长度就交给 {@link CjkTextSplitter} 切一次，已确定的切片立即输出，
+ * 缓冲区始终只有一两个切片大小，内存占用与文件大小无关。
+ */
+public class ChunkingContentHandler extends DefaultHandler {
+
+    // 块级元素结束时补换行，让段落边界保留下来供切片使用
+    private static final Set<String> BLOCK_ELEMENTS = Set.of(
+        "p", "div", "br", "li", "tr", "h1", "h2", "h3", "h4", "h5", "h6", "pre", "blockquote", "table");
+
+    private static final char[] NEWLINE = {'\n'};
+
+    private final CjkTextSplitter splitter;
+    private final Consumer<String> sink;
+    private final int scanStep;
+    private final StringBuilder window;
+
+    // 窗口开头已被上一片输出过的字符数（重叠部分）
+    private int emitted;
+    // 上次切分时的窗口长度
+    private int scanned;
+    private int lastEnd;
+
+    public ChunkingContentHandler(CjkTextSplitter splitter, Consumer<String> sink) {
+        this.splitter = splitter;
+        this.sink = sink;
+        this.scanStep = splitter.maxChunkChars();
+        this.window = new StringBuilder(scanStep * 2);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        while (length > 0) {
+            int n = Math.min(scanStep, length);
+            window.append(ch, start, n);
+            start += n;
+            length -= n;
+            if (window.length() - scanned >= scanStep) {
+                drain(false);
+            }
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if (BLOCK_ELEMENTS.contains(localName)) {
+            characters(NEWLINE, 0, 1);
+        }
+    }
+
+    /**
+     * 输出窗口中剩余的内容，解析结束后调用。
+     */
+    public void flush() {
+        if (window.length() > emitted) {
+            drain(true);
+        }
+        window.setLength(0);
+        emitted = 0;
+        scanned = 0;
+    }
+
+    private void drain(boolean last) {
+        lastEnd = 0;
+        int keep = splitter.split(window, last, this::emit);
+        window.delete(0, keep);
+        emitted = Math.max(0, lastEnd - keep);
+        scanned = window.length();
+    }
+
+    private void emit(int start, int end) {
+        String chunk = splitter.chunkText(window, start, end);
+        if (chunk != null) {
+            sink.accept(chunk);
+        }
+        lastEnd = end;
+    }
+}
@@ -0,0 +1,230 @@
+package com.wx.rag.ingestion;
+
+import org.springframework.ai.transformer.splitter.TextSplitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 面向中英混排文本的切片器，用于替代 TokenTextSplitter。
+ * <p>
+ * 1. 单遍扫描 CharSequence，同时识别中文（。！？；…）与西文（. ! ? ;）句末以及段落换行；
+ * 2. 用 {@link TokenEstimator} 逐字符累加估算 token，不做 BPE 编码/解码；
+ * 3. 切片只记录 [start, end) 区间，重叠通过回退起点实现，不复制子串，只有最终输出时才生成 String。
+ * <p>
+ * 切片优先落在段落边界，其次句子边界，找不到时才硬切。
+ */
+public class CjkTextSplitter extends TextSplitter {
+
+    /**
+     * 切片区间回调
+     */
+    @FunctionalInterface
+    public interface SpanConsumer {
+        void accept(int start, int end);
+    }
+
+    private final int chunkUnits;
+    private final int overlapUnits;
+    private final int minChunkLengthToEmbed;
+    private final int maxNumChunks;
+
+    /**
+     * @param chunkSize             每片的目标 token 数
+     * @param overlap               相邻切片的重叠 token 数（按整句回退，不超过该值）
+     * @param minChunkLengthToEmbed 去除首尾空白后小于该长度的切片丢弃
+     * @param maxNumChunks          单个文档最多输出的切片数
+     */
+    public CjkTextSplitter(int chunkSize, int overlap, int minChunkLengthToEmbed, int maxNumChunks) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        if (overlap < 0 || overlap * 2 >= chunkSize) {
+            throw new IllegalArgumentException("overlap must be in [0, chunkSize / 2)");
+        }
+        this.chunkUnits = chunkSize * TokenEstimator.UNITS_PER_TOKEN;
+        this.overlapUnits = overlap * TokenEstimator.UNITS_PER_TOKEN;
+        this.minChunkLengthToEmbed = minChunkLengthToEmbed;
+        this.maxNumChunks = maxNumChunks;
+    }
+
+    /**
+     * 单个切片可能的最大字符数（每个字符至少计 1 单位）
+     */
+    public int maxChunkChars() {
+        return chunkUnits;
+    }
+
+    @Override
+    protected List<String> splitText(String text) {
+        List<String> chunks = new ArrayList<>();
+        split(text, true, (start, end) -> {
+            if (chunks.size() < maxNumChunks) {
+                String chunk = chunkText(text, start, end);
+                if (chunk != null) {
+                    chunks.add(chunk);
+                }
+            }
+        });
+        return chunks;
+    }
+
+    /**
+     * 单遍扫描 text，把切片区间依次交给 sink。
+     *
+     * @param last false 表示后面还有文本（流式场景）：末尾不足一片的内容不输出
+     * @return 尚未输出的内容（含重叠部分）在 text 中的起点；last 为 true 时返回 text 长度
+     */
+    public int split(CharSequence text, boolean last, SpanConsumer sink) {
+        int length = text.length();
+
+        // 当前切片内的候选边界：边界位置、该位置之前的累计单位数、是否段落边界
+        int[] boundaryPos = new int[32];
+        long[] boundaryUnits = new long[32];
+        boolean[] paragraph = new boolean[32];
+        int head = 0;
+        int tail = 0;
+
+        int chunkStart = 0;
+        long chunkStartUnits = 0;
+        long units = 0;
+        int emittedEnd = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int u = TokenEstimator.units(c);
+
+            if (units + u - chunkStartUnits > chunkUnits) {
+                int end = i;
+                long endUnits = units;
+                int cut = pickBoundary(boundaryUnits, paragraph, head, tail, chunkStartUnits);
+                if (cut >= 0) {
+                    end = boundaryPos[cut];
+                    endUnits = boundaryUnits[cut];
+                } else if (Character.isLowSurrogate(c) && i - 1 > chunkStart) {
+                    // 硬切时不拆开代理对
+                    end = i - 1;
+                    endUnits = units - TokenEstimator.units(text.charAt(i - 1));
+                }
+                sink.accept(chunkStart, end);
+                emittedEnd = end;
+
+                // 下一片回退到 end 之前、重叠不超过 overlap 的最早句子边界
+                int nextStart = end;
+                long nextStartUnits = endUnits;
+                for (int b = head; b < tail; b++) {
+                    if (boundaryPos[b] < end && endUnits - boundaryUnits[b] <= overlapUnits) {
+                        nextStart = boundaryPos[b];
+                        nextStartUnits = boundaryUnits[b];
+                        break;
+                    }
+                }
+                chunkStart = nextStart;
+                chunkStartUnits = nextStartUnits;
+                while (head < tail && boundaryPos[head] <= chunkStart) {
+                    head++;
+                }
+            }
+
+            units += u;
+
+            if (isBoundary(text, i, length)) {
+                if (tail == boundaryPos.length) {
+                    // 先把已失效的前段挪走，仍然不够再扩容
+                    int live = tail - head;
+                    if (head > 0) {
+                        System.arraycopy(boundaryPos, head, boundaryPos, 0, live);
+                        System.arraycopy(boundaryUnits, head, boundaryUnits, 0, live);
+                        System.arraycopy(paragraph, head, paragraph, 0, live);
+                        head = 0;
+                        tail = live;
+                    }
+                    if (tail == boundaryPos.length) {
+                        boundaryPos = Arrays.copyOf(boundaryPos, tail * 2);
+                        boundaryUnits = Arrays.copyOf(boundaryUnits, tail * 2);
+                        paragraph = Arrays.copyOf(paragraph, tail * 2);
+                    }
+                }
+                boundaryPos[tail] = i + 1;
+                boundaryUnits[tail] = units;
+                paragraph[tail] = c == '\n';
+                tail++;
+            }
+        }
+
+        if (!last) {
+            return chunkStart;
+        }
+        if (length > emittedEnd && chunkStart < length) {
+            sink.accept(chunkStart, length);
+        }
+        return length;
+    }
+
+    /**
+     * 去掉区间首尾空白后生成切片文本，过短时返回 null。
+     */
+    public String chunkText(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < minChunkLengthToEmbed) {
+            return null;
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    // 优先选填充度 >= 3/4 的最后一个段落边界，其次填充度 >= 1/2 的最后一个句子边界，都没有返回 -1
+    private int pickBoundary(long[] boundaryUnits, boolean[] paragraph, int head, int tail, long chunkStartUnits) {
+        int sentence = -1;
+        for (int b = tail - 1; b >= head; b--) {
+            long filled = boundaryUnits[b] - chunkStartUnits;
+            if (filled * 2 < chunkUnits) {
+                break;
+            }
+            if (paragraph[b] && filled * 4 >= chunkUnits * 3L) {
+                return b;
+            }
+            if (sentence < 0) {
+                sentence = b;
+            }
+        }
+        return sentence;
+    }
+
+    private static boolean isBoundary(CharSequence text, int i, int length) {
+        char c = text.charAt(i);
+        char next = i + 1 < length ? text.charAt(i + 1) : '\n';
+        // 句末紧跟引号/括号时，边界后移到引号之后
+        if (isClosing(next)) {
+            return false;
+        }
+        if (isClosing(c)) {
+            return i > 0 && isTerminal(text.charAt(i - 1));
+        }
+        return switch (c) {
+            case '\n', '。', '！', '？', '；', '…' -> true;
+            // 西文句号后必须是空白，避免把 3.14、e.g 之类切开
+            case '.', '!', '?', ';' -> Character.isWhitespace(next);
+            default -> false;
+        };
+    }
+
+    private static boolean isTerminal(char c) {
+        return switch (c) {
+            case '。', '！', '？', '；', '…', '.', '!', '?', ';' -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isClosing(char c) {
+        return switch (c) {
+            case '”', '’', '」', '』', '）', ')', '"', '\'' -> true;
+            default -> false;
+        };
+    }
+}
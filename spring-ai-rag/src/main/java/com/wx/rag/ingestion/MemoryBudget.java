@@ -0,0 +1,61 @@
+package com.wx.rag.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 全局内存预算：以 KB 为单位的信号量。
+ * 每个文件解析前按预估占用申请额度，额度不足时排队，保证并行解析的总内存有上限。
+ */
+@Slf4j
+public class MemoryBudget {
+
+    private static final long UNIT = 1024L;
+
+    private final int totalPermits;
+    private final Semaphore permits;
+
+    public MemoryBudget(long totalBytes) {
+        if (totalBytes < UNIT) {
+            throw new IllegalArgumentException("memory budget must be at least 1KB");
+        }
+        this.totalPermits = (int) Math.min(Integer.MAX_VALUE, totalBytes / UNIT);
+        this.permits = new Semaphore(totalPermits, true);
+    }
+
+    /**
+     * 阻塞直到申请到指定字节数的额度。单次申请超过总预算时按总预算处理，避免永久阻塞。
+     */
+    public Reservation acquire(long bytes) throws InterruptedException {
+        int wanted = (int) Math.min(totalPermits, Math.max(1, (bytes + UNIT - 1) / UNIT));
+        if (!permits.tryAcquire(wanted)) {
+            log.info("内存预算不足，等待额度: 需要 {}KB, 剩余 {}KB", wanted, permits.availablePermits());
+            permits.acquire(wanted);
+        }
+        return new Reservation(wanted);
+    }
+
+    public long availableBytes() {
+        return permits.availablePermits() * UNIT;
+    }
+
+    /**
+     * 申请到的额度，解析结束后必须在 finally 中调用 {@link #release()} 归还
+     */
+    public final class Reservation {
+        private final int amount;
+        private boolean released;
+
+        private Reservation(int amount) {
+            this.amount = amount;
+        }
+
+        public void release() {
+            if (!released) {
+                released = true;
+                permits.release(amount);
+            }
+        }
+    }
+}
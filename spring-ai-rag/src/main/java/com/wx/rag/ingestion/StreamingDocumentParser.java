@@ -0,0 +1,162 @@
+package com.wx.rag.ingestion;
+
+import com.wx.rag.config.IngestionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.ai.document.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 流式文档解析：上传文件先落盘，再由 Tika 以 SAX 事件的形式逐段输出文本，
+ * 经滑动窗口切片后按批次交给下游，整个过程不会在内存中出现整篇文本。
+ * <p>
+ * 每个切片带 {@code file_hash}（文件内容哈希）和 {@code ingest_id}（本次解析的唯一标识）元数据。
+ * 切片 ID 每次解析都不同，重复上传同一文件不会与已入库的切片主键冲突，下游失败时只回滚本次写入的切片，
+ * 成功后再按 file_hash 清理旧版本。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingDocumentParser {
+
+    public static final String FILE_HASH = "file_hash";
+    public static final String INGEST_ID = "ingest_id";
+
+    // 按接口注入，@Lazy 代理在首次解析时才创建 AutoDetectParser
+    @Lazy
+    private final Parser tikaParser;
+    private final CjkTextSplitter textSplitter;
+    private final IngestionProperties properties;
+    private final MemoryBudget memoryBudget;
+
+    /**
+     * 解析单个文件，每凑满 batchSize 个切片回调一次 batchSink。
+     *
+     * @return 切片总数
+     */
+    public int parse(MultipartFile file, Consumer<List<Document>> batchSink) throws IOException {
+        String filename = file.getOriginalFilename();
+        Path spooled = spool(file);
+        try {
+            String fileHash;
+            try (InputStream in = Files.newInputStream(spooled)) {
+                fileHash = sha256(in);
+            }
+            MemoryBudget.Reservation reservation = memoryBudget.acquire(reservationBytes());
+            try {
+                return parseSpooled(spooled, filename, fileHash, batchSink);
+            } finally {
+                reservation.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待内存预算时被中断: " + filename, e);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    private int parseSpooled(Path spooled, String filename, String fileHash, Consumer<List<Document>> batchSink)
+        throws IOException {
+        try (TikaInputStream in = TikaInputStream.get(spooled)) {
+            int batchSize = properties.getBatchSize();
+            List<Document> batch = new ArrayList<>(batchSize);
+            int[] count = {0};
+            String ingestId = UUID.randomUUID().toString();
+
+            ChunkingContentHandler handler = new ChunkingContentHandler(textSplitter, text -> {
+                int index = count[0]++;
+                batch.add(new Document(text, metadata(filename, fileHash, ingestId, index)));
+                if (batch.size() >= batchSize) {
+                    batchSink.accept(List.copyOf(batch));
+                    batch.clear();
+                }
+            });
+
+            Metadata metadata = new Metadata();
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, filename);
+            tikaParser.parse(in, new BodyContentHandler(handler), metadata, new ParseContext());
+            handler.flush();
+            if (!batch.isEmpty()) {
+                batchSink.accept(List.copyOf(batch));
+            }
+            return count[0];
+        } catch (TikaException | SAXException e) {
+            throw new IOException("Tika 解析失败: " + filename, e);
+        }
+    }
+
+    // 上传内容直接从 multipart 临时文件拷到我们自己的临时文件，不经过堆内 byte[]
+    private Path spool(MultipartFile file) throws IOException {
+        Path dir = StringUtils.hasText(properties.getSpoolDir())
+            ? Files.createDirectories(Path.of(properties.getSpoolDir()))
+            : Path.of(System.getProperty("java.io.tmpdir"));
+        Path target = Files.createTempFile(dir, "rag-upload-", ".tmp");
+        try {
+            file.transferTo(target);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        log.debug("文件已落盘: {} -> {} ({} bytes)", file.getOriginalFilename(), target, file.getSize());
+        return target;
+    }
+
+    // 预估单个文件的峰值占用：Tika 内部结构 + 一批待入库切片 + 滑动窗口（char 按 2 字节计）
+    private long reservationBytes() {
+        long chunkBytes = textSplitter.maxChunkChars() * 2L;
+        return properties.getParserOverheadMb() * 1024L * 1024L + (properties.getBatchSize() + 2) * chunkBytes;
+    }
+
+    /**
+     * 文件内容的 SHA-256，同一内容重复上传时据此找到旧版本切片
+     */
+    public static String sha256(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Map<String, Object> metadata(String filename, String fileHash, String ingestId, int chunkIndex) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("filename", filename);
+        metadata.put(FILE_HASH, fileHash);
+        metadata.put(INGEST_ID, ingestId);
+        metadata.put("chunk_index", chunkIndex);
+        return metadata;
+    }
+}
@@ -0,0 +1,44 @@
+package com.wx.rag.ingestion;
+
+/**
+ * 按字符增量估算 token 数，替代 BPE 整段编码。
+ * 以 1/4 token 为计量单位：汉字/全角标点约 1 token，英文字母与数字约 4 个一个 token。
+ * 对 qwen、bge-m3 这类模型误差在 ±20% 以内，足够切片使用，且只需一次查表。
+ */
+public final class TokenEstimator {
+
+    /**
+     * 每个 token 对应的计量单位数
+     */
+    public static final int UNITS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 单个 char 的计量单位数（1/4 token）
+     */
+    public static int units(char c) {
+        if (c < 0x80) {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                return 1;
+            }
+            // 空白也计 1，保证任意文本的切片字符数都有上限
+            return c <= ' ' ? 1 : 2;
+        }
+        if (Character.isSurrogate(c)) {
+            // 代理对两半合计 1 token
+            return 2;
+        }
+        // 0x2E80 以上是 CJK 部首、假名、汉字、谚文及全角标点
+        return c >= 0x2E80 ? UNITS_PER_TOKEN : 2;
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        long units = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            units += units(text.charAt(i));
+        }
+        return (int) ((units + UNITS_PER_TOKEN - 1) / UNITS_PER_TOKEN);
+    }
+}
@@ -0,0 +1,48 @@
+package com.wx.rag.ollama;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 最近 N 次耗时的滑动窗口，用于计算对冲请求的触发时机（如 p95）。
+ * 窗口只有几百个样本，按需复制排序，耗时在微秒级，相对一次模型调用可以忽略。
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final int minSamples;
+    private int count;
+    private int next;
+
+    public LatencyTracker(int window, int minSamples) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.samples = new long[window];
+        this.minSamples = Math.max(1, Math.min(minSamples, window));
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * 返回窗口内的分位数耗时；样本不足时返回 null，此时不做对冲
+     */
+    public Duration percentile(double quantile) {
+        long[] copy;
+        synchronized (this) {
+            if (count < minSamples) {
+                return null;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(quantile * copy.length) - 1;
+        return Duration.ofNanos(copy[Math.max(0, Math.min(copy.length - 1, index))]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.wx.rag.ollama;
+
+import org.springframework.ai.ollama.api.OllamaApi;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个 Ollama 节点：独立的 OllamaApi 客户端 + 在途请求数 + 摘除状态
+ */
+public class OllamaNode {
+
+    private final String baseUrl;
+    private final OllamaApi api;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // 摘除截止时间（System.nanoTime），0 表示可用
+    private volatile long ejectedUntil;
+
+    public OllamaNode(String baseUrl, OllamaApi api) {
+        this.baseUrl = baseUrl;
+        this.api = api;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public OllamaApi getApi() {
+        return api;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isAvailable() {
+        return ejectedUntil == 0;
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * 记录一次失败，返回连续失败次数
+     */
+    int failed() {
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void succeeded() {
+        consecutiveFailures.set(0);
+    }
+
+    void eject(long untilNanos) {
+        ejectedUntil = untilNanos;
+    }
+
+    long ejectedUntil() {
+        return ejectedUntil;
+    }
+
+    void reinstate() {
+        consecutiveFailures.set(0);
+        ejectedUntil = 0;
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
@@ -0,0 +1,147 @@
+package com.wx.rag.ollama;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ollama 节点池：最少在途请求选节点，主动健康检查 + 被动失败计数摘除坏节点。
+ * <p>
+ * 选择：在可用节点中取在途请求最少的一个，并列时从随机位置开始，避免总压在第一个节点上。
+ * 全部节点都被摘除时不拒绝请求，退化为在所有节点中按在途请求数选择。
+ * <p>
+ * 摘除：连续失败达到阈值或健康检查失败即摘除，摘除期过后健康检查通过才恢复。
+ */
+@Slf4j
+public class OllamaNodePool implements AutoCloseable {
+
+    private final List<OllamaNode> nodes;
+    private final int failureThreshold;
+    private final Duration ejection;
+    private final List<RestClient> healthClients;
+    private final ScheduledExecutorService healthChecker;
+
+    public OllamaNodePool(List<OllamaNode> nodes, Duration healthInterval, Duration healthTimeout,
+        int failureThreshold, Duration ejection) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("at least one Ollama endpoint is required");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.failureThreshold = failureThreshold;
+        this.ejection = ejection;
+
+        // 健康检查用独立的短超时客户端，不受业务请求的长读超时影响
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(healthTimeout);
+        factory.setReadTimeout(healthTimeout);
+        this.healthClients = this.nodes.stream()
+            .map(node -> RestClient.builder().baseUrl(node.getBaseUrl()).requestFactory(factory).build())
+            .toList();
+
+        // 单节点时摘除没有意义（总会退化为使用它），不做健康检查
+        if (this.nodes.size() > 1 && !healthInterval.isZero() && !healthInterval.isNegative()) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ollama-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthInterval.toMillis(),
+                healthInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    public List<OllamaNode> nodes() {
+        return nodes;
+    }
+
+    /**
+     * 选择在途请求最少的可用节点
+     *
+     * @param exclude 需要排除的节点（对冲/重试时排除第一个节点），可为 null
+     * @return 选中的节点；指定了 exclude 且没有其他可用节点时返回 null
+     */
+    public OllamaNode select(OllamaNode exclude) {
+        OllamaNode best = pick(exclude, true);
+        if (best == null && exclude == null) {
+            best = pick(null, false);
+        }
+        return best;
+    }
+
+    private OllamaNode pick(OllamaNode exclude, boolean availableOnly) {
+        int size = nodes.size();
+        int start = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        OllamaNode best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            OllamaNode node = nodes.get((start + i) % size);
+            if (node == exclude || (availableOnly && !node.isAvailable())) {
+                continue;
+            }
+            int load = node.outstanding();
+            if (load < bestLoad) {
+                best = node;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    public void recordSuccess(OllamaNode node) {
+        node.succeeded();
+    }
+
+    public void recordFailure(OllamaNode node, Throwable error) {
+        int failures = node.failed();
+        if (failures >= failureThreshold && node.isAvailable() && nodes.size() > 1) {
+            eject(node, "连续失败 " + failures + " 次: " + error.getMessage());
+        }
+    }
+
+    private void eject(OllamaNode node, String reason) {
+        node.eject(System.nanoTime() + ejection.toNanos());
+        log.warn("Ollama 节点已摘除 {}，{}s 后重新检查: {}", node, ejection.toSeconds(), reason);
+    }
+
+    private void checkHealth() {
+        for (int i = 0; i < nodes.size(); i++) {
+            OllamaNode node = nodes.get(i);
+            boolean healthy;
+            try {
+                healthClients.get(i).get().uri("/api/tags").retrieve().toBodilessEntity();
+                healthy = true;
+            } catch (Exception e) {
+                healthy = false;
+                if (node.isAvailable()) {
+                    eject(node, "健康检查失败: " + e.getMessage());
+                }
+            }
+            if (healthy && !node.isAvailable() && System.nanoTime() - node.ejectedUntil() >= 0) {
+                node.reinstate();
+                log.info("Ollama 节点已恢复 {}", node);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return nodes.stream().map(OllamaNode::getBaseUrl).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,265 @@
+package com.wx.rag.ollama;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 多节点 OllamaApi：替换自动配置的单地址 OllamaApi，OllamaChatModel / OllamaEmbeddingModel 无需改动。
+ * <p>
+ * 每次调用按最少在途请求选节点，首个 token 之前失败时换节点重试一次。只有 I/O 错误、超时和 5xx
+ * 才换节点重试并计入节点故障，4xx 是请求本身的问题，换节点也一样失败，直接抛出。
+ * 开启对冲后，若第一个节点在历史 p95 耗时内还没返回（单条向量）或没吐出首个 token（流式对话），
+ * 就向另一个节点发出相同请求，取先返回的一方，另一方取消。只有约 5% 的慢请求会被对冲，额外负载有限。
+ * 第一个节点在对冲延迟之前就失败时立即发出第二个请求，不再等满延迟。
+ * <p>
+ * 模型管理接口（拉取、复制、删除）对所有节点执行，查询接口任选一个节点。
+ */
+@Slf4j
+public class PooledOllamaApi extends OllamaApi {
+
+    // OllamaApi 的阻塞调用把 HTTP 错误包装成 RuntimeException("[状态码] 原因 - 响应体")
+    private static final Pattern STATUS_PREFIX = Pattern.compile("^\\[(\\d{3})]");
+
+    private final OllamaNodePool pool;
+    private final HedgePolicy embeddingHedge;
+    private final HedgePolicy firstTokenHedge;
+
+    public PooledOllamaApi(OllamaNodePool pool, HedgePolicy embeddingHedge, HedgePolicy firstTokenHedge) {
+        // 父类的客户端不会被用到，只是满足构造要求
+        super(pool.nodes().get(0).getBaseUrl(), RestClient.builder(), WebClient.builder());
+        this.pool = pool;
+        this.embeddingHedge = embeddingHedge;
+        this.firstTokenHedge = firstTokenHedge;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        return callWithFailover(node -> node.getApi().chat(chatRequest), null);
+    }
+
+    @Override
+    public Flux<ChatResponse> streamingChat(ChatRequest chatRequest) {
+        return Flux.defer(() -> {
+            OllamaNode primary = pool.select(null);
+            Duration delay = firstTokenHedge.delay();
+            OllamaNode secondary = delay == null ? null : pool.select(primary);
+            if (secondary == null) {
+                return streamWithFailover(primary, chatRequest);
+            }
+            // 谁先吐出首个 token 就用谁，另一路连接被取消，Ollama 随之停止生成
+            return hedge(stream(primary, chatRequest), delay, stream(secondary, chatRequest));
+        });
+    }
+
+    @Override
+    public EmbeddingsResponse embed(EmbeddingsRequest embeddingsRequest) {
+        // 只对冲检索时的单条问题向量；入库的批量向量看吞吐不看延迟，对冲只会加倍负载
+        boolean single = embeddingsRequest.input() == null || embeddingsRequest.input().size() <= 1;
+        return callWithFailover(node -> node.getApi().embed(embeddingsRequest), single ? embeddingHedge : null);
+    }
+
+    @Override
+    public ListModelResponse listModels() {
+        return callWithFailover(node -> node.getApi().listModels(), null);
+    }
+
+    @Override
+    public ShowModelResponse showModel(ShowModelRequest showModelRequest) {
+        return callWithFailover(node -> node.getApi().showModel(showModelRequest), null);
+    }
+
+    @Override
+    public ResponseEntity<Void> copyModel(CopyModelRequest copyModelRequest) {
+        ResponseEntity<Void> response = null;
+        for (OllamaNode node : pool.nodes()) {
+            response = node.getApi().copyModel(copyModelRequest);
+        }
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<Void> deleteModel(DeleteModelRequest deleteModelRequest) {
+        ResponseEntity<Void> response = null;
+        for (OllamaNode node : pool.nodes()) {
+            response = node.getApi().deleteModel(deleteModelRequest);
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ProgressResponse> pullModel(PullModelRequest pullModelRequest) {
+        return Flux.fromIterable(pool.nodes()).concatMap(node -> node.getApi().pullModel(pullModelRequest));
+    }
+
+    private <T> T callWithFailover(NodeCall<T> call, HedgePolicy hedge) {
+        OllamaNode primary = pool.select(null);
+        Duration delay = hedge == null ? null : hedge.delay();
+        OllamaNode secondary = delay == null ? null : pool.select(primary);
+        if (secondary != null) {
+            // 阻塞调用放到弹性线程池，慢的一方在另一方返回后被取消
+            Mono<T> first = Mono.fromCallable(() -> timed(primary, call, hedge))
+                .subscribeOn(Schedulers.boundedElastic());
+            Mono<T> second = Mono.fromCallable(() -> timed(secondary, call, hedge))
+                .subscribeOn(Schedulers.boundedElastic());
+            return hedge(first.flux(), delay, second.flux()).next().block();
+        }
+        try {
+            return timed(primary, call, hedge);
+        } catch (RuntimeException e) {
+            OllamaNode other = isRetryable(e) ? pool.select(primary) : null;
+            if (other == null) {
+                throw e;
+            }
+            log.warn("Ollama 节点 {} 请求失败，改用 {}: {}", primary, other, e.getMessage());
+            return timed(other, call, hedge);
+        }
+    }
+
+    private <T> T timed(OllamaNode node, NodeCall<T> call, HedgePolicy hedge) {
+        node.begin();
+        long start = System.nanoTime();
+        try {
+            T result = call.apply(node);
+            if (hedge != null) {
+                hedge.tracker().record(System.nanoTime() - start);
+            }
+            pool.recordSuccess(node);
+            return result;
+        } catch (RuntimeException e) {
+            // 对冲输掉的一方被中断，不算节点故障；4xx 是请求的问题，也不算
+            if (!Thread.currentThread().isInterrupted() && isRetryable(e)) {
+                pool.recordFailure(node, e);
+            }
+            throw e;
+        } finally {
+            node.end();
+        }
+    }
+
+    /**
+     * 先订阅 primary，延迟 delay 后或 primary 以可重试的错误失败时再订阅 secondary，取先给出结果的一方。
+     * 两路都失败时抛出 primary 的异常，而不是 firstWithValue 的 NoSuchElementException。
+     */
+    private <T> Flux<T> hedge(Flux<T> primary, Duration delay, Flux<T> secondary) {
+        return Flux.defer(() -> {
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Flux<T> first = primary.doOnError(e -> {
+                primaryError.set(e);
+                if (isRetryable(e)) {
+                    primaryFailed.tryEmitEmpty();
+                } else {
+                    // 4xx 换节点也一样失败，第二路不再发出
+                    primaryFailed.tryEmitError(e);
+                }
+            });
+            Mono<Void> trigger = Mono.firstWithSignal(Mono.delay(delay).then(), primaryFailed.asMono());
+            return Flux.firstWithValue(first, trigger.thenMany(secondary))
+                .onErrorMap(NoSuchElementException.class,
+                    e -> primaryError.get() != null ? primaryError.get() : e);
+        });
+    }
+
+    private Flux<ChatResponse> streamWithFailover(OllamaNode primary, ChatRequest chatRequest) {
+        AtomicBoolean emitted = new AtomicBoolean();
+        return stream(primary, chatRequest)
+            .doOnNext(response -> emitted.set(true))
+            .onErrorResume(e -> {
+                // 已经输出过内容就不能换节点重来，否则用户会看到重复的回答
+                OllamaNode other = emitted.get() || !isRetryable(e) ? null : pool.select(primary);
+                if (other == null) {
+                    return Flux.error(e);
+                }
+                log.warn("Ollama 节点 {} 流式请求失败，改用 {}: {}", primary, other, e.getMessage());
+                return stream(other, chatRequest);
+            });
+    }
+
+    private Flux<ChatResponse> stream(OllamaNode node, ChatRequest chatRequest) {
+        return Flux.defer(() -> {
+            node.begin();
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return node.getApi().streamingChat(chatRequest)
+                .doOnNext(response -> {
+                    if (first.compareAndSet(true, false)) {
+                        firstTokenHedge.tracker().record(System.nanoTime() - start);
+                    }
+                })
+                .doOnComplete(() -> pool.recordSuccess(node))
+                .doOnError(e -> {
+                    if (isRetryable(e)) {
+                        pool.recordFailure(node, e);
+                    }
+                })
+                .doFinally(signal -> node.end());
+        });
+    }
+
+    /**
+     * I/O 错误、超时和 5xx 可以换节点重试；4xx 及其他异常（如反序列化失败）直接抛出
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof RestClientResponseException response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+            if (e instanceof WebClientResponseException response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+            if (e instanceof ResourceAccessException || e instanceof WebClientRequestException
+                || e instanceof IOException || e instanceof TimeoutException) {
+                return true;
+            }
+            if (e.getClass() == RuntimeException.class && e.getMessage() != null) {
+                Matcher status = STATUS_PREFIX.matcher(e.getMessage());
+                if (status.find()) {
+                    return Integer.parseInt(status.group(1)) >= 500;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface NodeCall<T> {
+        T apply(OllamaNode node);
+    }
+
+    /**
+     * 对冲策略：窗口内样本足够时，按分位数耗时（不低于最小延迟）决定何时发出第二个请求
+     */
+    public record HedgePolicy(boolean enabled, LatencyTracker tracker, double percentile, Duration minDelay) {
+
+        Duration delay() {
+            if (!enabled) {
+                return null;
+            }
+            Duration observed = tracker.percentile(percentile);
+            if (observed == null) {
+                return null;
+            }
+            return observed.compareTo(minDelay) < 0 ? minDelay : observed;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.wx.rag.rerank;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 无模型时的词法重排：中文按相邻二字、英文按小写单词切词，在候选集合内计算 BM25，
+ * 再与向量检索的名次做 RRF（倒数排名融合），两种信号互补且不依赖分数量纲。
+ * 20 个候选耗时在 1ms 以内。
+ */
+public class LexicalReranker implements Reranker {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int RRF_K = 60;
+
+    @Override
+    public float[] score(String query, List<Document> candidates, long deadlineNanos) {
+        int n = candidates.size();
+        float[] scores = new float[n];
+        Set<String> queryTerms = new HashSet<>();
+        forEachTerm(query, queryTerms::add);
+        if (queryTerms.isEmpty()) {
+            // 没有可比对的词，保持向量检索顺序
+            for (int i = 0; i < n; i++) {
+                scores[i] = rrf(i);
+            }
+            return scores;
+        }
+
+        // 只统计问题里出现的词，文档长度按全部词数计
+        List<Map<String, Integer>> termFreqs = new ArrayList<>(n);
+        int[] docLengths = new int[n];
+        Map<String, Integer> docFreq = new HashMap<>();
+        long totalLength = 0;
+        for (int i = 0; i < n; i++) {
+            Map<String, Integer> tf = new HashMap<>();
+            int[] length = {0};
+            forEachTerm(candidates.get(i).getText(), term -> {
+                length[0]++;
+                if (queryTerms.contains(term)) {
+                    tf.merge(term, 1, Integer::sum);
+                }
+            });
+            tf.keySet().forEach(term -> docFreq.merge(term, 1, Integer::sum));
+            termFreqs.add(tf);
+            docLengths[i] = length[0];
+            totalLength += length[0];
+        }
+        double avgLength = Math.max(1.0, (double) totalLength / n);
+
+        double[] bm25 = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lengthNorm = K1 * (1 - B + B * docLengths[i] / avgLength);
+            for (Map.Entry<String, Integer> e : termFreqs.get(i).entrySet()) {
+                int df = docFreq.get(e.getKey());
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                int tf = e.getValue();
+                bm25[i] += idf * tf * (K1 + 1) / (tf + lengthNorm);
+            }
+        }
+
+        // BM25 名次（分数相同按向量顺序）与向量名次融合
+        Integer[] order = new Integer[n];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -bm25[i]).thenComparingInt(i -> i));
+        for (int lexicalRank = 0; lexicalRank < n; lexicalRank++) {
+            int i = order[lexicalRank];
+            scores[i] = rrf(i) + rrf(lexicalRank);
+        }
+        return scores;
+    }
+
+    private static float rrf(int rank) {
+        return 1.0f / (RRF_K + rank + 1);
+    }
+
+    // 中文（含日韩）连续字符输出相邻二字，单字成词时输出单字；英文/数字输出小写单词
+    private static void forEachTerm(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c >= 0x2E80 && Character.isLetter(c)) {
+                int start = i;
+                while (i < length && text.charAt(i) >= 0x2E80 && Character.isLetter(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    sink.accept(text.substring(start, i));
+                } else {
+                    for (int j = start; j + 1 < i; j++) {
+                        sink.accept(text.substring(j, j + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && text.charAt(i) < 0x2E80 && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                sink.accept(text.substring(start, i).toLowerCase());
+            } else {
+                i++;
+            }
+        }
+    }
+}
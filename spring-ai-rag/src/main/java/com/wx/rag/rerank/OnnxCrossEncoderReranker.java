@@ -0,0 +1,183 @@
+package com.wx.rag.rerank;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 ONNX Runtime 的 CPU 交叉编码器重排（如 bge-reranker-base / ms-marco-MiniLM 导出的 ONNX 模型）。
+ * 问题与片段成对输入模型，取第一个 logit 作为相关性分数。
+ * 按批推理，每批之前检查截止时间；批内推理到截止时间由看门狗设置终止标志中断，不会拖过预算。
+ * 超时、推理失败或模型输出形状不符时停止，剩余候选返回 NaN，按检索顺序排在后面。
+ */
+@Slf4j
+public class OnnxCrossEncoderReranker implements Reranker, AutoCloseable {
+
+    // 片段先按字符截断，避免为超长文本做无用的分词
+    private static final int MAX_DOC_CHARS = 1024;
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final boolean needsTokenTypes;
+    private final int batchSize;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rerank-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OnnxCrossEncoderReranker(Path modelPath, Path tokenizerPath, int maxLength, int batchSize, int threads)
+        throws OrtException, IOException {
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(threads);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            this.session = environment.createSession(modelPath.toString(), options);
+        }
+        this.needsTokenTypes = session.getInputNames().contains("token_type_ids");
+        this.tokenizer = HuggingFaceTokenizer.builder()
+            .optTokenizerPath(tokenizerPath)
+            .optMaxLength(maxLength)
+            .optTruncateSecondOnly()
+            .optPadding(false)
+            .build();
+        this.batchSize = batchSize;
+        log.info("交叉编码器重排已加载: model={}, inputs={}", modelPath, session.getInputNames());
+    }
+
+    @Override
+    public float[] score(String query, List<Document> candidates, long deadlineNanos) {
+        int n = candidates.size();
+        float[] scores = new float[n];
+        Arrays.fill(scores, Float.NaN);
+        for (int from = 0; from < n; from += batchSize) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                log.debug("重排预算耗尽，已打分 {}/{}", from, n);
+                break;
+            }
+            int to = Math.min(n, from + batchSize);
+            try {
+                scoreBatch(query, candidates, from, to, scores, deadlineNanos);
+            } catch (OrtException e) {
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    log.debug("重排预算耗尽，批内推理已中断，已打分 {}/{}", from, n);
+                } else {
+                    log.warn("交叉编码器推理失败，剩余候选保持原顺序", e);
+                }
+                break;
+            } catch (IllegalStateException e) {
+                log.warn("交叉编码器输出不符合预期，剩余候选保持原顺序: {}", e.getMessage());
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private void scoreBatch(String query, List<Document> candidates, int from, int to, float[] scores,
+        long deadlineNanos) throws OrtException {
+        int size = to - from;
+        Encoding[] encodings = new Encoding[size];
+        int maxLen = 0;
+        for (int i = 0; i < size; i++) {
+            String text = candidates.get(from + i).getText();
+            if (text.length() > MAX_DOC_CHARS) {
+                text = text.substring(0, MAX_DOC_CHARS);
+            }
+            encodings[i] = tokenizer.encode(query, text);
+            maxLen = Math.max(maxLen, encodings[i].getIds().length);
+        }
+
+        // 批内补齐到最长序列，补齐位置 attention_mask 为 0
+        long[][] ids = new long[size][maxLen];
+        long[][] mask = new long[size][maxLen];
+        long[][] types = new long[size][maxLen];
+        for (int i = 0; i < size; i++) {
+            long[] encodedIds = encodings[i].getIds();
+            System.arraycopy(encodedIds, 0, ids[i], 0, encodedIds.length);
+            System.arraycopy(encodings[i].getAttentionMask(), 0, mask[i], 0, encodedIds.length);
+            System.arraycopy(encodings[i].getTypeIds(), 0, types[i], 0, encodedIds.length);
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, ids));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, mask));
+            if (needsTokenTypes) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, types));
+            }
+            float[][] logits = run(inputs, deadlineNanos);
+            // 先校验整批再写入，不留下半批分数
+            if (logits.length < size) {
+                throw new IllegalStateException("expected " + size + " rows of logits, got " + logits.length);
+            }
+            for (int i = 0; i < size; i++) {
+                if (logits[i].length == 0) {
+                    throw new IllegalStateException("empty logits row " + i);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                scores[from + i] = logits[i][0];
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    /**
+     * 在截止时间前完成一次推理：到点由看门狗设置终止标志，session.run 随即以 OrtException 返回
+     */
+    private float[][] run(Map<String, OnnxTensor> inputs, long deadlineNanos) throws OrtException {
+        try (OrtSession.RunOptions runOptions = new OrtSession.RunOptions()) {
+            // 终止任务与关闭 RunOptions 互斥，避免对已释放的句柄设置标志
+            Object lock = new Object();
+            boolean[] finished = new boolean[1];
+            ScheduledFuture<?> terminate = watchdog.schedule(() -> {
+                synchronized (lock) {
+                    if (!finished[0]) {
+                        try {
+                            runOptions.setTerminate(true);
+                        } catch (OrtException e) {
+                            log.warn("设置重排终止标志失败", e);
+                        }
+                    }
+                }
+            }, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            try (OrtSession.Result result = session.run(inputs, runOptions)) {
+                if (result.size() == 0 || !(result.get(0).getValue() instanceof float[][] logits)) {
+                    throw new IllegalStateException("expected float[batch][labels] logits, got "
+                        + (result.size() == 0 ? "no output" : result.get(0).getInfo()));
+                }
+                return logits;
+            } finally {
+                terminate.cancel(false);
+                synchronized (lock) {
+                    finished[0] = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws OrtException {
+        watchdog.shutdownNow();
+        tokenizer.close();
+        session.close();
+    }
+}
@@ -0,0 +1,22 @@
+package com.wx.rag.rerank;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * 候选片段重排打分器
+ */
+public interface Reranker {
+
+    /**
+     * 对候选片段打分，分数越高越相关。
+     * 超过截止时间时允许只完成前一部分，未打分的位置返回 {@link Float#NaN}。
+     *
+     * @param query         用户问题
+     * @param candidates    向量检索的候选，按相似度降序
+     * @param deadlineNanos 截止时间（{@link System#nanoTime()} 时间轴）
+     * @return 与 candidates 等长的分数数组
+     */
+    float[] score(String query, List<Document> candidates, long deadlineNanos);
+}
@@ -0,0 +1,95 @@
+package com.wx.rag.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * 简单熔断器：连续失败达到阈值后打开，打开期间直接走降级，不再占用连接和线程去等一个已知故障的后端。
+ * 打开时长过后进入半开，只放行一个探测请求：成功则关闭，失败则重新打开。
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * 是否放行本次调用；放行后必须以 onSuccess / onFailure / onCancel 之一结束
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                log.info("熔断器 [{}] 进入半开，放行探测请求", name);
+                return true;
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    /**
+     * 只查询、不占用半开探测名额
+     */
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("熔断器 [{}] 已恢复", name);
+        }
+        state = State.CLOSED;
+        failures = 0;
+        probing = false;
+    }
+
+    public synchronized void onFailure(Throwable error) {
+        probing = false;
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("熔断器 [{}] 打开，{}s 内直接降级: {}", name, openNanos / 1_000_000_000L,
+                    error == null ? "" : error.toString());
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * 调用被取消（如客户端断开），结果未知：不计成功失败，只归还半开探测名额
+     */
+    public synchronized void onCancel() {
+        probing = false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.wx.rag.resilience;
+
+import java.time.Duration;
+
+/**
+ * 单次请求的截止时间，随请求依次传给检索、重排、缓存查询和生成，
+ * 每一步的超时都取"本步上限"与"剩余时间"中较小的一个。
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 剩余时间是否还够做一件预计耗时 {@code required} 的事
+     */
+    public boolean hasAtLeast(Duration required) {
+        return deadlineNanos - System.nanoTime() >= required.toNanos();
+    }
+
+    /**
+     * 本步超时：不超过剩余时间
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        return timeout.compareTo(remaining) < 0 ? timeout : remaining;
+    }
+
+    public long toNanoTime() {
+        return deadlineNanos;
+    }
+}
@@ -1,46 +1,148 @@
 package com.wx.rag.service;
 
+import com.wx.rag.config.IngestionProperties;
+import com.wx.rag.ingestion.CjkTextSplitter;
+import com.wx.rag.ingestion.StreamingDocumentParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.tika.TikaDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class IngestionService {
+    @Lazy
     private final VectorStore vectorStore;
-    private final TokenTextSplitter splitter = new TokenTextSplitter(400, 100, 5, 10000, true);
-
-    public void processDocuments(MultipartFile[] files) {
-        // 1. 利用 parallelStream 开启并行文件解析 (提升 Tika 效率)
-        List<Document> allSplitDocs = Arrays.stream(files).parallel().flatMap(file -> {
-            try {
-                TikaDocumentReader loader = new TikaDocumentReader(new InputStreamResource(file.getInputStream()));
-                return splitter.apply(loader.get()).stream()
-                    .peek(doc -> doc.getMetadata().put("filename", file.getOriginalFilename()));
-            } catch (IOException e) {
-                log.error("解析失败: {}", file.getOriginalFilename(), e);
-                return null;
+    private final IngestionProperties properties;
+    private final StreamingDocumentParser streamingParser;
+    private final CjkTextSplitter splitter;
+    // 解析会在内存预算上阻塞，放在独立线程池里，不占用 ForkJoin 公共池
+    @Qualifier("ingestionExecutor")
+    private final ExecutorService ingestionExecutor;
+
+    /**
+     * 并行入库多个文件，每个文件单独成功或失败。
+     * <p>
+     * 每次入库的切片 ID 都是新的：失败时只删除本次写入的切片，之前成功入库的同一文件不受影响；
+     * 成功后再按 file_hash 删除同一文件的旧版本，重传不会产生重复数据。
+     */
+    public List<FileResult> processDocuments(MultipartFile[] files) {
+        List<CompletableFuture<FileResult>> tasks = Arrays.stream(files)
+            .map(file -> CompletableFuture.supplyAsync(
+                () -> properties.isStreaming() ? processStreaming(file) : processBuffered(file), ingestionExecutor))
+            .toList();
+        return tasks.stream().map(CompletableFuture::join).toList();
+    }
+
+    // 流式模式：边解析边切片边入库，并发度由线程池和全局内存预算兜底
+    private FileResult processStreaming(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        long startTime = System.currentTimeMillis();
+        List<String> written = new ArrayList<>();
+        Document[] first = new Document[1];
+        try {
+            int chunks = streamingParser.parse(file, batch -> {
+                // 先记 ID 再写入：批次写到一半失败时也能删干净
+                batch.forEach(doc -> written.add(doc.getId()));
+                if (first[0] == null) {
+                    first[0] = batch.get(0);
+                }
+                vectorStore.add(batch);
+            });
+            if (first[0] != null) {
+                removePrevious(filename, (String) first[0].getMetadata().get(StreamingDocumentParser.FILE_HASH),
+                    (String) first[0].getMetadata().get(StreamingDocumentParser.INGEST_ID));
             }
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+            log.info("入库完成: {}, 切片 {} 个, 耗时 {}ms", filename, chunks, System.currentTimeMillis() - startTime);
+            return new FileResult(filename, chunks, null);
+        } catch (Exception e) {
+            log.error("入库失败: {}", filename, e);
+            rollback(filename, written);
+            return new FileResult(filename, 0, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    private FileResult processBuffered(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        List<String> written = new ArrayList<>();
+        try {
+            byte[] content = file.getBytes();
+            String fileHash = StreamingDocumentParser.sha256(new ByteArrayInputStream(content));
+            String ingestId = UUID.randomUUID().toString();
+            TikaDocumentReader loader = new TikaDocumentReader(new ByteArrayResource(content));
+            List<Document> docs = splitter.apply(loader.get());
+            docs.forEach(doc -> {
+                doc.getMetadata().put("filename", filename);
+                doc.getMetadata().put(StreamingDocumentParser.FILE_HASH, fileHash);
+                doc.getMetadata().put(StreamingDocumentParser.INGEST_ID, ingestId);
+            });
+
+            // 严控分批入库：每批 32 条最稳健，防止远程请求超时
+            int batchSize = properties.getBatchSize();
+            for (int i = 0; i < docs.size(); i += batchSize) {
+                List<Document> batch = docs.subList(i, Math.min(i + batchSize, docs.size()));
+                batch.forEach(doc -> written.add(doc.getId()));
+                vectorStore.add(batch);
+            }
+            removePrevious(filename, fileHash, ingestId);
+            return new FileResult(filename, docs.size(), null);
+        } catch (Exception e) {
+            log.error("入库失败: {}", filename, e);
+            rollback(filename, written);
+            return new FileResult(filename, 0, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    // 新版本已完整写入，再删除同一文件内容之前入库的切片；删除失败只会留下重复切片，不影响本次结果
+    private void removePrevious(String filename, String fileHash, String ingestId) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        try {
+            vectorStore.delete(b.and(b.eq(StreamingDocumentParser.FILE_HASH, fileHash),
+                b.ne(StreamingDocumentParser.INGEST_ID, ingestId)).build());
+        } catch (Exception e) {
+            log.warn("清理 {} 的旧版本切片失败，向量库中可能有重复切片: {}", filename, e.getMessage());
+        }
+    }
+
+    // 只删除本次写入的切片
+    private void rollback(String filename, List<String> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        try {
+            vectorStore.delete(written);
+            log.info("已回滚 {} 的 {} 个切片", filename, written.size());
+        } catch (Exception e) {
+            log.error("回滚失败，{} 的 {} 个切片残留在向量库中: {}", filename, written.size(), written, e);
+        }
+    }
+
+    /**
+     * 单个文件的入库结果
+     *
+     * @param error 失败原因，成功时为 null
+     */
+    public record FileResult(String filename, int chunks, String error) {
 
-        // 2. 严控分批入库：每批 32 条最稳健，防止远程请求超时
-        int batchSize = 32;
-        for (int i = 0; i < allSplitDocs.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, allSplitDocs.size());
-            vectorStore.add(allSplitDocs.subList(i, end));
+        public boolean isSuccess() {
+            return error == null;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,30 @@
 package com.wx.rag.service;
 
+import com.wx.rag.cache.QueryEmbeddingCache;
+import com.wx.rag.cache.SemanticAnswerCache;
+import com.wx.rag.config.ResilienceProperties;
+import com.wx.rag.config.RetrievalProperties;
+import com.wx.rag.resilience.CircuitBreaker;
+import com.wx.rag.resilience.Deadline;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.InMemoryChatMemory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,6 +33,14 @@ public class RagService {
 
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
+    private final RerankService rerankService;
+    private final RetrievalProperties retrievalProperties;
+    private final ResilienceProperties resilienceProperties;
+    private final CircuitBreaker milvusBreaker;
+    private final CircuitBreaker ollamaBreaker;
+    private final SemanticAnswerCache answerCache;
+    private final QueryEmbeddingCache queryEmbeddings;
+    private final ChatMemory chatMemory = new InMemoryChatMemory();
 
     // 1. 提炼系统提示词：指令越短，小模型 prefill（预热）速度越快
     private static final String SYSTEM_PROMPT = """
@@ -29,60 +50,226 @@ public class RagService {
         3. 资料未提及则告知不知道。
         """;
 
-    public RagService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore) {
+    public RagService(ChatClient.Builder chatClientBuilder, @Lazy VectorStore vectorStore, RerankService rerankService,
+        RetrievalProperties retrievalProperties, ResilienceProperties resilienceProperties,
+        @Qualifier("milvusBreaker") CircuitBreaker milvusBreaker, @Qualifier("ollamaBreaker") CircuitBreaker ollamaBreaker,
+        SemanticAnswerCache answerCache, QueryEmbeddingCache queryEmbeddings) {
         this.vectorStore = vectorStore;
+        this.rerankService = rerankService;
+        this.retrievalProperties = retrievalProperties;
+        this.resilienceProperties = resilienceProperties;
+        this.milvusBreaker = milvusBreaker;
+        this.ollamaBreaker = ollamaBreaker;
+        this.answerCache = answerCache;
+        this.queryEmbeddings = queryEmbeddings;
         this.chatClient = chatClientBuilder
             .defaultSystem(SYSTEM_PROMPT)
-            .defaultAdvisors(new MessageChatMemoryAdvisor(new InMemoryChatMemory()))
+            .defaultAdvisors(new MessageChatMemoryAdvisor(chatMemory))
             .build();
     }
 
     public Flux<String> streamAnswer(String query, String chatId) {
         long startTime = System.currentTimeMillis();
+        // 2. 整个请求共用一个截止时间，检索、重排、生成各自的超时都不超过剩余时间
+        Deadline deadline = Deadline.after(resilienceProperties.getRequestTimeout());
+        // 未带 chatId 的请求按一次性会话处理：不与其他匿名请求共享记忆，结束后清掉
+        String conversationId = chatId != null ? chatId : UUID.randomUUID().toString();
+        // 会话已有历史时回答可能引用前文，既不写入答案缓存，也不拿别的会话的回答降级
+        boolean cacheable = chatMemory.get(conversationId, 1).isEmpty();
 
-        // 2. 将阻塞的向量检索移至弹性线程池 (boundedElastic)，不占用请求主线程
-        return Mono.fromCallable(() -> {
-                // 3. 检索调优：topK=2 或 3 是 2核服务器的极限平衡点。
-                // 减少召回片段能直接缩短大模型的 CPU 推理时间。
-                SearchRequest searchRequest = SearchRequest.builder()
-                    .query(query)
-                    .topK(2)
-                    .similarityThreshold(0.5) // 提高阈值至 0.5，过滤杂音，减少上下文长度
-                    .build();
-                return vectorStore.similaritySearch(searchRequest);
-            })
-            .subscribeOn(Schedulers.boundedElastic())
-            .flatMapMany(docs -> {
+        return retrieve(query, deadline, startTime)
+            .flatMapMany(retrieval -> {
                 log.info("检索耗时: {}ms", (System.currentTimeMillis() - startTime));
+                List<Document> docs = retrieval.docs();
 
                 if (docs.isEmpty()) {
                     return Flux.just("🔍 知识库中未找到相关内容。");
                 }
-
-                // 4. 精简上下文拼接，减少 Token 消耗
-                String context = docs.stream()
-                    .map(Document::getText)
-                    .collect(Collectors.joining("\n"));
-
-                String references = docs.stream()
-                    .map(d -> (String) d.getMetadata().getOrDefault("filename", "未知"))
-                    .distinct()
-                    .collect(Collectors.joining(", "));
-
-                // 5. 调用流式生成
-                return chatClient.prompt()
-                    .user(u -> u.text("背景：{context}\n问题：{query}")
-                        .param("query", query)
-                        .param("context", context))
-                    .advisors(a -> a.param(MessageChatMemoryAdvisor.DEFAULT_CHAT_MEMORY_CONVERSATION_ID, chatId))
-                    .stream()
-                    .content()
-                    .concatWith(Flux.just("\n\n---\n> 📚 **参考来源：** " + references))
+                // 6. 时间不够或生成服务熔断时不再调用大模型，直接降级
+                if (!deadline.hasAtLeast(resilienceProperties.getMinGenerationTime())) {
+                    return degrade(query, retrieval, cacheable, deadline, "剩余时间不足");
+                }
+                if (!ollamaBreaker.tryAcquire()) {
+                    return degrade(query, retrieval, cacheable, deadline, "生成服务熔断中");
+                }
+                return generate(query, conversationId, retrieval, cacheable, deadline)
                     .doOnComplete(() -> log.info("全流程总耗时: {}ms", (System.currentTimeMillis() - startTime)));
             })
             .onErrorResume(e -> {
                 log.error("RAG流程异常", e);
-                return Flux.just("⚠️ [系统繁忙] 处理请求超时，请稍后再试。");
+                return degrade(query, Retrieval.NONE, cacheable, deadline, "检索失败");
+            })
+            .doFinally(signal -> {
+                if (chatId == null) {
+                    chatMemory.clear(conversationId);
+                }
             });
     }
+
+    private Mono<Retrieval> retrieve(String query, Deadline deadline, long startTime) {
+        // 熔断判断推迟到订阅时；熔断器和检索超时只覆盖问题向量化 + Milvus 查询
+        return Mono.defer(() -> {
+                if (!milvusBreaker.tryAcquire()) {
+                    return Mono.error(new IllegalStateException("检索服务熔断中"));
+                }
+                // 3. 将阻塞的向量检索移至弹性线程池 (boundedElastic)，不占用请求主线程；超时后中断检索线程
+                return Mono.fromCallable(() -> search(query, startTime))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .timeout(deadline.cap(resilienceProperties.getRetrievalTimeout()))
+                    .doOnError(milvusBreaker::onFailure)
+                    .doOnCancel(milvusBreaker::onCancel);
+            })
+            // 重排在检索线程上继续执行，按自己的预算和请求截止时间截断，慢了不算 Milvus 故障
+            .map(search -> new Retrieval(rerankService.rerank(query, search.docs(), deadline), search.embedding()));
+    }
+
+    private Retrieval search(String query, long startTime) {
+        // 4. 检索调优：先多召回 candidateK 个候选，再在本地重排，只把 topN 个片段送进 Prompt。
+        // 召回率由候选数决定，大模型的 CPU 推理时间只取决于 topN。
+        SearchRequest searchRequest = SearchRequest.builder()
+            .query(query)
+            .topK(retrievalProperties.getCandidateK())
+            .similarityThreshold(retrievalProperties.getSimilarityThreshold()) // 过滤杂音
+            .build();
+        float[] embedding;
+        List<Document> candidates;
+        try {
+            // 先向量化问题：向量库检索时命中同一份向量，写入答案缓存时也直接复用
+            embedding = queryEmbeddings.embed(query);
+            candidates = vectorStore.similaritySearch(searchRequest);
+        } catch (RuntimeException e) {
+            if (isInterrupted(e)) {
+                // 已超时被中断，结果没人要了，不再抛出（否则只会被当作 dropped error 打印）
+                return Retrieval.NONE;
+            }
+            throw e;
+        }
+        milvusBreaker.onSuccess();
+        log.info("向量检索耗时: {}ms, 候选 {} 个", (System.currentTimeMillis() - startTime), candidates.size());
+        return new Retrieval(candidates, embedding);
+    }
+
+    private Flux<String> generate(String query, String conversationId, Retrieval retrieval, boolean cacheable,
+        Deadline deadline) {
+        List<Document> docs = retrieval.docs();
+        // 5. 精简上下文拼接，减少 Token 消耗
+        String context = buildContext(docs);
+        String footer = "\n\n---\n> 📚 **参考来源：** " + buildReferences(docs);
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean truncated = new AtomicBoolean();
+
+        // 7. 流式生成：首个 token、相邻 token 分别限时，到截止时间直接截断（取消上游，Ollama 随之停止生成）
+        Flux<String> tokens = chatClient.prompt()
+            .user(u -> u.text("背景：{context}\n问题：{query}")
+                .param("query", query)
+                .param("context", context))
+            .advisors(a -> a.param(MessageChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY, conversationId))
+            .stream()
+            .content()
+            .timeout(Mono.delay(deadline.cap(resilienceProperties.getFirstTokenTimeout())),
+                token -> Mono.delay(resilienceProperties.getInterTokenTimeout()))
+            .doOnNext(token -> {
+                if (answer.isEmpty()) {
+                    ollamaBreaker.onSuccess();
+                }
+                answer.append(token);
+            })
+            .takeUntilOther(Mono.delay(deadline.remaining()).doOnNext(tick -> truncated.set(true)));
+
+        return tokens
+            .concatWith(Flux.defer(() -> {
+                if (answer.isEmpty()) {
+                    // 截止前一个 token 都没有，按生成失败降级
+                    ollamaBreaker.onFailure(null);
+                    return degrade(query, retrieval, cacheable, deadline, "生成无输出");
+                }
+                if (truncated.get()) {
+                    return Flux.just("\n\n> ⏱️ 回答超时，已截断。" + footer);
+                }
+                ollamaBreaker.onSuccess();
+                if (cacheable) {
+                    answerCache.put(query, retrieval.embedding(), answer + footer);
+                }
+                return Flux.just(footer);
+            }))
+            .onErrorResume(e -> {
+                ollamaBreaker.onFailure(e);
+                log.warn("生成失败: {}", e.toString());
+                if (answer.isEmpty()) {
+                    return degrade(query, retrieval, cacheable, deadline, "生成失败");
+                }
+                // 已经输出了一部分，不能再换成别的内容，只提示不完整
+                return Flux.just("\n\n> ⚠️ 生成中断，回答可能不完整。" + footer);
+            })
+            .doOnCancel(ollamaBreaker::onCancel);
+    }
+
+    /**
+     * 降级：先找相似问题的历史回答，再退回检索到的原文片段，都没有才提示繁忙
+     */
+    private Flux<String> degrade(String query, Retrieval retrieval, boolean cacheable, Deadline deadline,
+        String reason) {
+        List<Document> docs = retrieval.docs();
+        return Mono.fromCallable(() -> {
+                log.warn("降级回答（{}）: {}", reason, query);
+                ResilienceProperties.Cache cache = resilienceProperties.getCache();
+                if (cache.isEnabled() && cacheable) {
+                    Optional<String> cached = answerCache.lookup(query, retrieval.embedding(),
+                        deadline.cap(cache.getEmbedTimeout()));
+                    if (cached.isPresent()) {
+                        return "> ⚡ 生成服务繁忙，以下为相似问题的历史回答。\n\n" + cached.get();
+                    }
+                }
+                if (!docs.isEmpty()) {
+                    return "> ⚠️ 生成服务暂不可用，以下为检索到的原文片段，供参考。\n\n" + buildPassages(docs)
+                        + "\n---\n> 📚 **参考来源：** " + buildReferences(docs);
+                }
+                return "⚠️ [系统繁忙] 处理请求超时，请稍后再试。";
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flux();
+    }
+
+    private static boolean isInterrupted(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * 检索结果：文档片段 + 问题向量（检索失败时为空）
+     */
+    private record Retrieval(List<Document> docs, float[] embedding) {
+
+        static final Retrieval NONE = new Retrieval(List.of(), null);
+    }
+
+    static String buildContext(List<Document> docs) {
+        return docs.stream()
+            .map(Document::getText)
+            .collect(Collectors.joining("\n"));
+    }
+
+    static String buildPassages(List<Document> docs) {
+        StringBuilder passages = new StringBuilder();
+        for (int i = 0; i < docs.size(); i++) {
+            Document doc = docs.get(i);
+            passages.append("**[").append(i + 1).append("] ")
+                .append(doc.getMetadata().getOrDefault("filename", "未知"))
+                .append("**\n\n")
+                .append(doc.getText().strip())
+                .append("\n\n");
+        }
+        return passages.toString();
+    }
+
+    static String buildReferences(List<Document> docs) {
+        return docs.stream()
+            .map(d -> (String) d.getMetadata().getOrDefault("filename", "未知"))
+            .distinct()
+            .collect(Collectors.joining(", "));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.wx.rag.service;
+
+import com.wx.rag.config.RetrievalProperties;
+import com.wx.rag.resilience.Deadline;
+import com.wx.rag.rerank.Reranker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检索与生成之间的重排阶段：对多召回的候选打分，只把最相关的 topN 个片段交给 LLM。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RerankService {
+
+    @Lazy
+    private final Reranker reranker;
+    private final RetrievalProperties properties;
+
+    public List<Document> rerank(String query, List<Document> candidates) {
+        return rerank(query, candidates, null);
+    }
+
+    /**
+     * @param requestDeadline 请求整体的截止时间，重排预算不会超过它；为 null 时只受重排预算限制
+     */
+    public List<Document> rerank(String query, List<Document> candidates, Deadline requestDeadline) {
+        int topN = properties.getTopN();
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+        long start = System.nanoTime();
+        long budget = TimeUnit.MILLISECONDS.toNanos(properties.getRerank().getBudgetMs());
+        // nanoTime 可以为负，只比较差值，不用哨兵值参与减法
+        long deadline = start + budget;
+        if (requestDeadline != null && requestDeadline.toNanoTime() - deadline < 0) {
+            deadline = requestDeadline.toNanoTime();
+        }
+
+        float[] scores = reranker.score(query, candidates, deadline);
+
+        // 已打分的按分数降序；预算内未打分的（NaN）按向量检索顺序排在后面
+        Integer[] order = new Integer[candidates.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> Float.isNaN(scores[i]) ? 1 : 0)
+            .thenComparingDouble(i -> Float.isNaN(scores[i]) ? 0 : -scores[i])
+            .thenComparingInt(i -> i));
+
+        List<Document> selected = new ArrayList<>(Math.min(topN, order.length));
+        for (int i = 0; i < order.length && selected.size() < topN; i++) {
+            selected.add(candidates.get(order[i]));
+        }
+        log.info("重排耗时: {}ms, 候选 {} -> {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            candidates.size(), selected.size());
+        return selected;
+    }
+}
@@ -0,0 +1,207 @@
+package com.wx.rag.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.wx.rag.config.SnapshotProperties;
+import com.wx.rag.snapshot.SnapshotReader;
+import com.wx.rag.snapshot.SnapshotRecord;
+import com.wx.rag.snapshot.SnapshotWriter;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.QueryResults;
+import io.milvus.param.R;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.QueryParam;
+import io.milvus.param.dml.UpsertParam;
+import io.milvus.response.QueryResultsWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.autoconfigure.vectorstore.milvus.MilvusVectorStoreProperties;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.ai.vectorstore.milvus.MilvusVectorStore.CONTENT_FIELD_NAME;
+import static org.springframework.ai.vectorstore.milvus.MilvusVectorStore.DOC_ID_FIELD_NAME;
+import static org.springframework.ai.vectorstore.milvus.MilvusVectorStore.EMBEDDING_FIELD_NAME;
+import static org.springframework.ai.vectorstore.milvus.MilvusVectorStore.METADATA_FIELD_NAME;
+
+/**
+ * 向量库快照：把 Milvus 中的切片文本、元数据和向量原样导出到文件，或从文件批量写回。
+ * 新副本、灾难恢复直接导入快照，不再重新上传文件、解析、切片和调用 bge-m3 向量化。
+ * <p>
+ * 导出按主键游标分页（doc_id &gt; 上一批最大值），每批一次查询，内存中只保留一个块；
+ * 导入按批 upsert，同一份快照重复导入不会产生重复数据。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SnapshotService {
+
+    private static final List<String> FIELDS =
+        List.of(DOC_ID_FIELD_NAME, CONTENT_FIELD_NAME, METADATA_FIELD_NAME, EMBEDDING_FIELD_NAME);
+
+    @Lazy
+    private final VectorStore vectorStore;
+    private final MilvusVectorStoreProperties milvusProperties;
+    private final SnapshotProperties properties;
+
+    /**
+     * 导出整个集合；先写临时文件，完成后再改名，中途失败不会留下不完整的快照
+     *
+     * @return 导出的切片数
+     */
+    public long exportTo(Path file) throws IOException {
+        MilvusServiceClient client = milvusClient();
+        int batchSize = properties.getBatchSize();
+        long start = System.nanoTime();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long rows;
+        try (SnapshotWriter writer = new SnapshotWriter(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 20),
+            milvusProperties.getEmbeddingDimension(), properties.isCompress(), batchSize)) {
+            String cursor = null;
+            while (true) {
+                // 查询结果按主键有序，取本批最大的 doc_id 作为下一批的起点
+                String expr = cursor == null ? DOC_ID_FIELD_NAME + " != \"\""
+                    : DOC_ID_FIELD_NAME + " > \"" + escape(cursor) + "\"";
+                QueryParam query = QueryParam.newBuilder()
+                    .withDatabaseName(milvusProperties.getDatabaseName())
+                    .withCollectionName(milvusProperties.getCollectionName())
+                    .withExpr(expr)
+                    .withOutFields(FIELDS)
+                    .withLimit((long) batchSize)
+                    .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                    .build();
+                List<QueryResultsWrapper.RowRecord> records =
+                    new QueryResultsWrapper(check(client.query(query), "query")).getRowRecords();
+                for (QueryResultsWrapper.RowRecord record : records) {
+                    String id = (String) record.get(DOC_ID_FIELD_NAME);
+                    Object metadata = record.get(METADATA_FIELD_NAME);
+                    writer.write(new SnapshotRecord(id, (String) record.get(CONTENT_FIELD_NAME),
+                        metadata == null ? "{}" : metadata.toString(), toArray(record.get(EMBEDDING_FIELD_NAME))));
+                    if (cursor == null || id.compareTo(cursor) > 0) {
+                        cursor = id;
+                    }
+                }
+                if (records.size() < batchSize) {
+                    break;
+                }
+                log.info("快照导出中: {} 条", writer.getRowCount());
+            }
+            rows = writer.getRowCount();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("快照导出完成: {} 条 -> {} ({} KB)，耗时 {} ms", rows, file, Files.size(file) / 1024,
+            (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * 把快照写回当前集合（集合不存在时由向量库按配置创建），向量维度必须与配置一致
+     *
+     * @return 导入的切片数
+     */
+    public long importFrom(Path file) throws IOException {
+        MilvusServiceClient client = milvusClient();
+        int batchSize = properties.getBatchSize();
+        long start = System.nanoTime();
+        try (SnapshotReader reader = new SnapshotReader(new BufferedInputStream(Files.newInputStream(file), 1 << 20))) {
+            if (reader.getDimension() != milvusProperties.getEmbeddingDimension()) {
+                throw new IllegalStateException("snapshot dimension " + reader.getDimension()
+                    + " does not match configured embedding dimension " + milvusProperties.getEmbeddingDimension());
+            }
+            List<SnapshotRecord> batch = new ArrayList<>(batchSize);
+            List<SnapshotRecord> block;
+            while ((block = reader.nextBlock()) != null) {
+                for (SnapshotRecord record : block) {
+                    batch.add(record);
+                    if (batch.size() >= batchSize) {
+                        upsert(client, batch);
+                        batch.clear();
+                    }
+                }
+                log.info("快照导入中: {} 条", reader.getRowCount());
+            }
+            if (!batch.isEmpty()) {
+                upsert(client, batch);
+            }
+            // 封存新数据段，导入完成即持久化
+            check(client.flush(FlushParam.newBuilder()
+                .withDatabaseName(milvusProperties.getDatabaseName())
+                .addCollectionName(milvusProperties.getCollectionName())
+                .withSyncFlush(true)
+                .build()), "flush");
+            log.info("快照导入完成: {} <- {}，{} 条，耗时 {} ms", milvusProperties.getCollectionName(), file,
+                reader.getRowCount(), (System.nanoTime() - start) / 1_000_000);
+            return reader.getRowCount();
+        }
+    }
+
+    private void upsert(MilvusServiceClient client, List<SnapshotRecord> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        List<String> contents = new ArrayList<>(batch.size());
+        List<JSONObject> metadata = new ArrayList<>(batch.size());
+        List<List<Float>> embeddings = new ArrayList<>(batch.size());
+        for (SnapshotRecord record : batch) {
+            ids.add(record.id());
+            contents.add(record.content());
+            metadata.add(JSONObject.parseObject(record.metadata()));
+            List<Float> embedding = new ArrayList<>(record.embedding().length);
+            for (float value : record.embedding()) {
+                embedding.add(value);
+            }
+            embeddings.add(embedding);
+        }
+        check(client.upsert(UpsertParam.newBuilder()
+            .withDatabaseName(milvusProperties.getDatabaseName())
+            .withCollectionName(milvusProperties.getCollectionName())
+            .withFields(List.of(
+                new InsertParam.Field(DOC_ID_FIELD_NAME, ids),
+                new InsertParam.Field(CONTENT_FIELD_NAME, contents),
+                new InsertParam.Field(METADATA_FIELD_NAME, metadata),
+                new InsertParam.Field(EMBEDDING_FIELD_NAME, embeddings)))
+            .build()), "upsert");
+    }
+
+    // 取 Milvus 客户端会触发向量库初始化（建连、按配置建集合并加载）
+    private MilvusServiceClient milvusClient() {
+        return vectorStore.<MilvusServiceClient>getNativeClient()
+            .orElseThrow(() -> new IllegalStateException("snapshot export/import requires the Milvus vector store"));
+    }
+
+    private static <T> T check(R<T> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + operation + " failed: " + response.getMessage(),
+                response.getException());
+        }
+        return response.getData();
+    }
+
+    private static float[] toArray(Object vector) {
+        List<?> values = (List<?>) vector;
+        float[] embedding = new float[values.size()];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = ((Number) values.get(i)).floatValue();
+        }
+        return embedding;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,160 @@
+package com.wx.rag.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 向量快照读取：逐块解码 {@link SnapshotWriter} 写出的文件，校验 CRC 与总行数。
+ */
+public class SnapshotReader implements Closeable {
+
+    private final DataInputStream in;
+    private final int dimension;
+    private final boolean compressed;
+    private final long createdAt;
+    private long rowCount;
+    private boolean finished;
+
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+        try {
+            this.in.readFully(magic);
+        } catch (EOFException e) {
+            throw new IOException("not a RAG snapshot: file too short", e);
+        }
+        if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+            throw new IOException("not a RAG snapshot: bad magic");
+        }
+        int version = this.in.readInt();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        this.dimension = this.in.readInt();
+        byte compression = this.in.readByte();
+        if (compression != SnapshotWriter.COMPRESSION_NONE && compression != SnapshotWriter.COMPRESSION_DEFLATE) {
+            throw new IOException("unsupported snapshot compression " + compression);
+        }
+        this.compressed = compression == SnapshotWriter.COMPRESSION_DEFLATE;
+        this.createdAt = this.in.readLong();
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 读取下一个块
+     *
+     * @return 块中的切片；读到文件尾时返回 null
+     */
+    public List<SnapshotRecord> nextBlock() throws IOException {
+        if (finished) {
+            return null;
+        }
+        try {
+            return readBlock();
+        } catch (EOFException e) {
+            throw new IOException("snapshot is truncated after " + rowCount + " rows", e);
+        }
+    }
+
+    private List<SnapshotRecord> readBlock() throws IOException {
+        int rows = in.readInt();
+        if (rows == 0) {
+            long expected = in.readLong();
+            if (expected != rowCount) {
+                throw new IOException("snapshot trailer expects " + expected + " rows but read " + rowCount);
+            }
+            finished = true;
+            return null;
+        }
+        int rawLength = in.readInt();
+        int storedLength = in.readInt();
+        int checksum = in.readInt();
+        if (rows < 0 || rawLength < 0 || storedLength < 0) {
+            throw new IOException("corrupt snapshot block header after " + rowCount + " rows");
+        }
+        byte[] stored = new byte[storedLength];
+        in.readFully(stored);
+        byte[] raw = compressed ? inflate(stored, rawLength) : stored;
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("snapshot block checksum mismatch after " + rowCount + " rows");
+        }
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(raw));
+        String[] ids = readStrings(data, rows);
+        String[] contents = readStrings(data, rows);
+        String[] metadata = readStrings(data, rows);
+        List<SnapshotRecord> records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            float[] embedding = new float[dimension];
+            for (int j = 0; j < dimension; j++) {
+                embedding[j] = data.readFloat();
+            }
+            records.add(new SnapshotRecord(ids[i], contents[i], metadata[i], embedding));
+        }
+        rowCount += rows;
+        return records;
+    }
+
+    private static String[] readStrings(DataInputStream data, int rows) throws IOException {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            byte[] bytes = new byte[data.readInt()];
+            data.readFully(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, rawLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawLength) {
+                throw new IOException("corrupt snapshot block: expected " + rawLength + " bytes, got " + length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt snapshot block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.wx.rag.snapshot;
+
+/**
+ * 快照中的一个切片：与 Milvus 集合的四个字段一一对应
+ *
+ * @param id        文档 ID（主键）
+ * @param content   切片文本
+ * @param metadata  元数据 JSON
+ * @param embedding 向量
+ */
+public record SnapshotRecord(String id, String content, String metadata, float[] embedding) {
+}
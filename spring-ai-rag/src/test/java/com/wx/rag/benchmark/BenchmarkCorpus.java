@@ -0,0 +1,50 @@
+package com.wx.rag.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的合成语料：固定随机种子，中文/英文/中英混排三种风格，每隔若干句插入段落换行。
+ */
+public final class BenchmarkCorpus {
+
+    private static final String[] ZH = {
+        "根据最新发布的实施细则，企业应当在每年三月底前完成年度申报。",
+        "对于符合条件的小微企业，增值税起征点提高至每月十万元；",
+        "申请人需要提交营业执照、财务报表以及近三个月的纳税证明。",
+        "政策执行过程中如遇特殊情况，可向主管部门申请延期办理！",
+        "“数字化转型专项资金”重点支持智能制造与工业互联网项目。",
+        "经审核通过的项目，补贴资金将在三十个工作日内拨付到位。",
+        "未按规定期限整改的，取消其享受优惠政策的资格？",
+    };
+
+    private static final String[] EN = {
+        "The policy applies to all enterprises registered before January 1, 2025. ",
+        "Applicants must submit the annual report together with audited financial statements. ",
+        "Eligible projects receive a subsidy of up to 30% of the total investment, e.g. equipment and software. ",
+        "Refer to Section 3.2 for the detailed review procedure! ",
+        "Is the deadline extended for small businesses? ",
+        "Funds are disbursed within thirty working days after approval; late filings are rejected. ",
+    };
+
+    private BenchmarkCorpus() {
+    }
+
+    public static String generate(String style, int length) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 128);
+        int sentences = 0;
+        while (sb.length() < length) {
+            boolean zh = switch (style) {
+                case "zh" -> true;
+                case "en" -> false;
+                default -> random.nextInt(3) != 0;
+            };
+            sb.append(zh ? ZH[random.nextInt(ZH.length)] : EN[random.nextInt(EN.length)]);
+            if (++sentences % (4 + random.nextInt(5)) == 0) {
+                sb.append("\n\n");
+            }
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.wx.rag.benchmark;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 离线 ChatModel：call 返回固定回答，stream 按 token 逐个返回，不引入任何延迟，
+ * 测到的只有框架与业务代码本身的开销。
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final String[] TOKENS = {"根据", "背景", "资料", "，", "该", "政策", "适用于", "小微", "企业", "。", "\n"};
+
+    private final int tokens;
+
+    public StubChatModel(int tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            sb.append(TOKENS[i % TOKENS.length]);
+        }
+        return response(sb.toString());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.range(0, tokens).map(i -> response(TOKENS[i % TOKENS.length]));
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
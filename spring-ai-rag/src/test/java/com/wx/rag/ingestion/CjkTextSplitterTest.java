@@ -0,0 +1,146 @@
+package com.wx.rag.ingestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CjkTextSplitter 的边界选择、重叠与硬切行为。
+ * 每片 20 token（汉字按 1 token 计，即最多 20 个汉字），重叠 5 token。
+ */
+class CjkTextSplitterTest {
+
+    private final CjkTextSplitter splitter = new CjkTextSplitter(20, 5, 1, 10000);
+
+    @Test
+    void shortTextIsSingleChunk() {
+        assertThat(splitter.splitText("增值税起征点是多少？")).containsExactly("增值税起征点是多少？");
+    }
+
+    @Test
+    void chunksNeverExceedChunkSize() {
+        String text = "小微企业增值税起征点提高到每月十万元。".repeat(30) + "Small businesses are exempt. ".repeat(30);
+        List<String> chunks = splitter.splitText(text);
+        assertThat(chunks).hasSizeGreaterThan(10);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(TokenEstimator.estimateTokens(chunk)).isLessThanOrEqualTo(20));
+    }
+
+    @Test
+    void cutsAtSentenceBoundary() {
+        // 每句 12 个汉字（含句号），两句超出 20 token，应在第一句末尾切开
+        String first = "纳税人月销售额未超过十万。";
+        String second = "免征增值税的政策继续执行。";
+        assertThat(splitter.splitText(first + second)).first().isEqualTo(first);
+    }
+
+    @Test
+    void prefersParagraphOverLaterSentence() {
+        // 段落边界填充度 >= 3/4 时优先于其后的句子边界
+        String paragraph = "第一段内容说明了小规模纳税人的认定。\n";
+        String rest = "第二段。继续说明。";
+        List<String> chunks = splitter.splitText(paragraph + rest);
+        assertThat(chunks.get(0)).isEqualTo(paragraph.strip());
+    }
+
+    @Test
+    void overlapRepeatsTrailingSentenceWithinBudget() {
+        // 句子长度 4 token，重叠 5 token 内只能回退一整句
+        String text = "甲乙丙。丁戊己。庚辛壬。癸子丑。寅卯辰。巳午未。申酉戌。亥天地。玄黄宇。宙洪荒。";
+        List<String> chunks = splitter.splitText(text);
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1);
+            String lastSentence = previous.substring(previous.lastIndexOf('。', previous.length() - 2) + 1);
+            assertThat(chunks.get(i)).startsWith(lastSentence);
+            assertThat(TokenEstimator.estimateTokens(lastSentence)).isLessThanOrEqualTo(5);
+        }
+    }
+
+    @Test
+    void overlapNeverExceedsBudget() {
+        // 句子 8 token，超过重叠预算，相邻切片不重叠
+        String text = "一二三四五六七。".repeat(6);
+        List<String> chunks = splitter.splitText(text);
+        assertThat(String.join("", chunks)).isEqualTo(text);
+    }
+
+    @Test
+    void hardCutsWhenNoBoundary() {
+        String text = "汉".repeat(50);
+        List<String> chunks = splitter.splitText(text);
+        assertThat(chunks).containsExactly("汉".repeat(20), "汉".repeat(20), "汉".repeat(10));
+    }
+
+    @Test
+    void hardCutDoesNotSplitSurrogatePair() {
+        // 𠀀 是代理对（合计 1 token），放在会被硬切的位置上
+        String text = "a".repeat(79) + "𠀀" + "b".repeat(10);
+        List<String> chunks = splitter.splitText(text);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(Character.isLowSurrogate(chunk.charAt(0))).isFalse();
+            assertThat(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1))).isFalse();
+        });
+        assertThat(String.join("", chunks)).isEqualTo(text);
+    }
+
+    @Test
+    void mixedTextKeepsDecimalsAndAbbreviations() {
+        // 3.14、e.g. 后面不是空白，不算句末；英文句号后跟空白才是边界
+        String text = "税率为3.14%左右，e.g.小规模。Rate is low. 其余免征。";
+        List<Integer> ends = new ArrayList<>();
+        new CjkTextSplitter(200, 10, 1, 10000).split(text, true, (start, end) -> ends.add(end));
+        assertThat(ends).containsExactly(text.length());
+
+        List<String> chunks = new CjkTextSplitter(8, 2, 1, 10000).splitText(text);
+        assertThat(chunks).noneMatch(chunk -> chunk.endsWith("3.") || chunk.startsWith("14"));
+    }
+
+    @Test
+    void closingQuoteStaysWithSentence() {
+        String quoted = "他说：“起征点提高到十万元。”";
+        String text = quoted + "随后公布了细则说明文件。";
+        assertThat(splitter.splitText(text).get(0)).isEqualTo(quoted);
+    }
+
+    @Test
+    void dropsShortChunksAndCapsChunkCount() {
+        CjkTextSplitter strict = new CjkTextSplitter(20, 5, 30, 10000);
+        assertThat(strict.splitText("太短。")).isEmpty();
+
+        CjkTextSplitter capped = new CjkTextSplitter(20, 0, 1, 2);
+        assertThat(capped.splitText("汉".repeat(100))).hasSize(2);
+    }
+
+    @Test
+    void streamingSplitKeepsUnfinishedTail() {
+        String text = "汉".repeat(50);
+        List<int[]> spans = new ArrayList<>();
+        int keep = splitter.split(text, false, (start, end) -> spans.add(new int[]{start, end}));
+        // 不是最后一段时，末尾不足一片的 10 个字留给下一次
+        assertThat(spans).hasSize(2);
+        assertThat(keep).isEqualTo(40);
+    }
+
+    @Test
+    void streamingHandlerMatchesWholeTextSplit() {
+        String text = ("小微企业增值税起征点提高到每月十万元。Small businesses are exempt. 税率3.5%。\n").repeat(40);
+        List<String> streamed = new ArrayList<>();
+        ChunkingContentHandler handler = new ChunkingContentHandler(splitter, streamed::add);
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i += 7) {
+            handler.characters(chars, i, Math.min(7, chars.length - i));
+        }
+        handler.flush();
+        assertThat(streamed).isEqualTo(splitter.splitText(text));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new CjkTextSplitter(0, 0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CjkTextSplitter(20, 10, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
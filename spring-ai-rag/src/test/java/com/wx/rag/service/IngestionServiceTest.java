@@ -0,0 +1,162 @@
+package com.wx.rag.service;
+
+import com.wx.rag.config.IngestionProperties;
+import com.wx.rag.ingestion.CjkTextSplitter;
+import com.wx.rag.ingestion.MemoryBudget;
+import com.wx.rag.ingestion.StreamingDocumentParser;
+import org.apache.tika.parser.AutoDetectParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 重复上传同一文件时的入库与回滚：失败的重传不能删掉之前成功入库的切片，成功的重传替换旧版本。
+ */
+class IngestionServiceTest {
+
+    private static final String CONTENT = "小微企业增值税起征点提高到每月十万元。".repeat(40);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final RecordingVectorStore vectorStore = new RecordingVectorStore();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void failedReuploadKeepsPreviousChunks(boolean streaming) {
+        IngestionService service = service(streaming);
+        assertThat(service.processDocuments(files()).get(0).isSuccess()).isTrue();
+        Map<String, Document> firstIngest = new LinkedHashMap<>(vectorStore.documents);
+        assertThat(firstIngest).hasSizeGreaterThan(2);
+
+        // 第二次上传写入第一批后失败
+        vectorStore.failAfterBatches = 1;
+        IngestionService.FileResult result = service.processDocuments(files()).get(0);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.error()).isEqualTo("milvus unavailable");
+        assertThat(vectorStore.documents).containsOnlyKeys(firstIngest.keySet());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void successfulReuploadReplacesPreviousChunks(boolean streaming) {
+        IngestionService service = service(streaming);
+        service.processDocuments(files());
+        List<String> firstIds = List.copyOf(vectorStore.documents.keySet());
+
+        assertThat(service.processDocuments(files()).get(0).isSuccess()).isTrue();
+
+        assertThat(vectorStore.documents).hasSameSizeAs(firstIds);
+        assertThat(vectorStore.documents.keySet()).doesNotContainAnyElementsOf(firstIds);
+    }
+
+    @Test
+    void chunksCarryFileHashAndIngestId() {
+        service(true).processDocuments(files());
+
+        assertThat(vectorStore.documents.values()).allSatisfy(doc -> {
+            assertThat(doc.getMetadata()).containsKeys(StreamingDocumentParser.FILE_HASH,
+                StreamingDocumentParser.INGEST_ID);
+            assertThat(doc.getMetadata()).containsEntry("filename", "policy.txt");
+        });
+        assertThat(vectorStore.documents.values().stream()
+            .map(doc -> doc.getMetadata().get(StreamingDocumentParser.INGEST_ID)).distinct()).hasSize(1);
+    }
+
+    private IngestionService service(boolean streaming) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.setStreaming(streaming);
+        properties.setBatchSize(2);
+        CjkTextSplitter splitter = new CjkTextSplitter(40, 5, 1, 10000);
+        StreamingDocumentParser parser = new StreamingDocumentParser(new AutoDetectParser(), splitter, properties,
+            new MemoryBudget(properties.getMemoryBudgetMb() * 1024L * 1024L));
+        return new IngestionService(vectorStore, properties, parser, splitter, executor);
+    }
+
+    private static MultipartFile[] files() {
+        return new MultipartFile[] {
+            new MockMultipartFile("files", "policy.txt", "text/plain", CONTENT.getBytes(StandardCharsets.UTF_8))
+        };
+    }
+
+    /**
+     * 内存向量库：按写入顺序保存文档，支持按 ID 和 eq/ne/and 过滤删除，可在写入若干批后模拟故障
+     */
+    private static class RecordingVectorStore implements VectorStore {
+
+        private final Map<String, Document> documents = new LinkedHashMap<>();
+        private int failAfterBatches = -1;
+
+        @Override
+        public synchronized void add(List<Document> batch) {
+            if (failAfterBatches == 0) {
+                throw new IllegalStateException("milvus unavailable");
+            }
+            if (failAfterBatches > 0) {
+                failAfterBatches--;
+            }
+            batch.forEach(doc -> documents.put(doc.getId(), doc));
+        }
+
+        @Override
+        public synchronized void delete(List<String> ids) {
+            ids.forEach(documents::remove);
+        }
+
+        @Override
+        public synchronized void delete(Filter.Expression expression) {
+            List<String> matched = new ArrayList<>();
+            documents.forEach((id, doc) -> {
+                if (matches(expression, doc.getMetadata())) {
+                    matched.add(id);
+                }
+            });
+            matched.forEach(documents::remove);
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        private static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+            return switch (expression.type()) {
+                case AND -> matches((Filter.Expression) expression.left(), metadata)
+                    && matches((Filter.Expression) expression.right(), metadata);
+                case EQ -> Objects.equals(metadata.get(key(expression)), value(expression));
+                case NE -> !Objects.equals(metadata.get(key(expression)), value(expression));
+                default -> throw new UnsupportedOperationException(expression.type().name());
+            };
+        }
+
+        private static String key(Filter.Expression expression) {
+            return ((Filter.Key) expression.left()).key();
+        }
+
+        private static Object value(Filter.Expression expression) {
+            return ((Filter.Value) expression.right()).value();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.wx.rag.service;
+
+import com.wx.rag.benchmark.BenchmarkCorpus;
+import com.wx.rag.benchmark.StubChatModel;
+import com.wx.rag.benchmark.StubEmbeddingModel;
+import com.wx.rag.cache.QueryEmbeddingCache;
+import com.wx.rag.cache.SemanticAnswerCache;
+import com.wx.rag.config.ResilienceProperties;
+import com.wx.rag.config.RetrievalProperties;
+import com.wx.rag.rerank.LexicalReranker;
+import com.wx.rag.resilience.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RagService 热路径：上下文/来源字符串拼接、重排，以及用离线模型跑完整的 streamAnswer。
+ * 与 RagService 同包，以便直接测包内可见的拼接方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RagServiceBenchmark {
+
+    private static final String QUERY = "小微企业的增值税起征点是多少？";
+
+    @Param({"2", "20"})
+    public int docs;
+
+    private List<Document> documents;
+    private RerankService rerankService;
+    private RagService ragService;
+
+    @Setup
+    public void setup() {
+        documents = new ArrayList<>(docs);
+        String corpus = BenchmarkCorpus.generate("mixed", docs * 600);
+        for (int i = 0; i < docs; i++) {
+            documents.add(new Document(corpus.substring(i * 600, (i + 1) * 600),
+                Map.of("filename", "policy-" + (i % 5) + ".pdf")));
+        }
+        RetrievalProperties properties = retrievalProperties();
+        rerankService = new RerankService(new LexicalReranker(), properties);
+    }
+
+    // 每轮迭代重建，避免对话记忆在整个基准过程中无限增长
+    @Setup(Level.Iteration)
+    public void setupService() {
+        QueryEmbeddingCache queryEmbeddings = new QueryEmbeddingCache(new StubEmbeddingModel(1024), 256);
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(queryEmbeddings.asEmbeddingModel()).build();
+        vectorStore.add(documents);
+        RetrievalProperties properties = retrievalProperties();
+        ResilienceProperties resilience = new ResilienceProperties();
+        ResilienceProperties.Breaker breaker = resilience.getBreaker();
+        CircuitBreaker ollamaBreaker = new CircuitBreaker("ollama", breaker.getFailureThreshold(),
+            breaker.getOpenDuration());
+        ragService = new RagService(ChatClient.builder(new StubChatModel(200)), vectorStore,
+            new RerankService(new LexicalReranker(), properties), properties, resilience,
+            new CircuitBreaker("milvus", breaker.getFailureThreshold(), breaker.getOpenDuration()), ollamaBreaker,
+            new SemanticAnswerCache(queryEmbeddings, ollamaBreaker, 500, Duration.ofHours(1), 0.92), queryEmbeddings);
+    }
+
+    @Benchmark
+    public String buildContext() {
+        return RagService.buildContext(documents);
+    }
+
+    @Benchmark
+    public String buildReferences() {
+        return RagService.buildReferences(documents);
+    }
+
+    @Benchmark
+    public List<Document> rerank() {
+        return rerankService.rerank(QUERY, documents);
+    }
+
+    @Benchmark
+    public List<String> streamAnswer() {
+        return ragService.streamAnswer(QUERY, "benchmark").collectList().block();
+    }
+
+    private RetrievalProperties retrievalProperties() {
+        RetrievalProperties properties = new RetrievalProperties();
+        properties.setCandidateK(docs);
+        // 离线向量是随机的，阈值置 0 保证每次都能召回
+        properties.setSimilarityThreshold(0.0);
+        return properties;
+    }
+}
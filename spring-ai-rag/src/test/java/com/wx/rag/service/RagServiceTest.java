@@ -0,0 +1,96 @@
+package com.wx.rag.service;
+
+import com.wx.rag.benchmark.StubChatModel;
+import com.wx.rag.benchmark.StubEmbeddingModel;
+import com.wx.rag.cache.QueryEmbeddingCache;
+import com.wx.rag.cache.SemanticAnswerCache;
+import com.wx.rag.config.ResilienceProperties;
+import com.wx.rag.config.RetrievalProperties;
+import com.wx.rag.rerank.LexicalReranker;
+import com.wx.rag.resilience.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 会话记忆与 chatId：不带 chatId 的请求正常生成，且匿名请求之间不共享历史。
+ */
+class RagServiceTest {
+
+    private static final String QUERY = "小微企业的增值税起征点是多少？";
+
+    private final RecordingChatModel chatModel = new RecordingChatModel();
+    private RagService ragService;
+
+    @BeforeEach
+    void setup() {
+        QueryEmbeddingCache queryEmbeddings = new QueryEmbeddingCache(new StubEmbeddingModel(64), 16);
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(queryEmbeddings.asEmbeddingModel()).build();
+        vectorStore.add(List.of(new Document("小微企业增值税起征点提高到每月十万元。", Map.of("filename", "policy.pdf"))));
+        RetrievalProperties properties = new RetrievalProperties();
+        // 离线向量是随机的，阈值置 0 保证能召回
+        properties.setSimilarityThreshold(0.0);
+        ResilienceProperties resilience = new ResilienceProperties();
+        CircuitBreaker ollamaBreaker = new CircuitBreaker("ollama", 5, Duration.ofSeconds(30));
+        ragService = new RagService(ChatClient.builder(chatModel), vectorStore,
+            new RerankService(new LexicalReranker(), properties), properties, resilience,
+            new CircuitBreaker("milvus", 5, Duration.ofSeconds(30)), ollamaBreaker,
+            new SemanticAnswerCache(queryEmbeddings, ollamaBreaker, 16, Duration.ofHours(1), 0.92), queryEmbeddings);
+    }
+
+    @Test
+    void answersWithoutChatId() {
+        String answer = String.join("", ragService.streamAnswer(QUERY, null).collectList().block());
+
+        assertThat(answer).startsWith("根据背景资料").contains("参考来源", "policy.pdf");
+        assertThat(chatModel.promptSizes).containsExactly(2);
+    }
+
+    @Test
+    void anonymousRequestsDoNotShareHistory() {
+        ragService.streamAnswer(QUERY, null).blockLast();
+        ragService.streamAnswer(QUERY, null).blockLast();
+
+        // 每次都只有系统提示词和本次问题
+        assertThat(chatModel.promptSizes).containsExactly(2, 2);
+    }
+
+    @Test
+    void namedChatKeepsHistory() {
+        ragService.streamAnswer(QUERY, "chat-1").blockLast();
+        ragService.streamAnswer(QUERY, "chat-1").blockLast();
+
+        // 第二轮带上第一轮的问答
+        assertThat(chatModel.promptSizes).containsExactly(2, 4);
+    }
+
+    /**
+     * 记录每次流式调用收到的消息条数
+     */
+    private static class RecordingChatModel extends StubChatModel {
+
+        private final List<Integer> promptSizes = new CopyOnWriteArrayList<>();
+
+        RecordingChatModel() {
+            super(4);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            promptSizes.add(prompt.getInstructions().size());
+            return super.stream(prompt);
+        }
+    }
+}
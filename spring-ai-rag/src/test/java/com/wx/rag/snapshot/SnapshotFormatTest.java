@@ -0,0 +1,203 @@
+package com.wx.rag.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 快照文件格式：写入后逐块读回，文件头校验，截断或损坏的文件必须被拒绝而不是读出残缺数据。
+ */
+class SnapshotFormatTest {
+
+    private static final int DIMENSION = 4;
+    // 文件头 magic(8) + version(4) + dimension(4) + compression(1) + createdAt(8)
+    private static final int HEADER_LENGTH = 25;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void readsBackWhatWasWritten(boolean compress) throws IOException {
+        List<SnapshotRecord> records = records(5);
+        byte[] file = write(records, compress, 2);
+
+        List<List<SnapshotRecord>> blocks = new ArrayList<>();
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(file))) {
+            assertThat(reader.getDimension()).isEqualTo(DIMENSION);
+            assertThat(reader.getCreatedAt()).isPositive();
+            List<SnapshotRecord> block;
+            while ((block = reader.nextBlock()) != null) {
+                blocks.add(block);
+            }
+            assertThat(reader.getRowCount()).isEqualTo(5);
+            assertThat(reader.nextBlock()).isNull();
+        }
+
+        assertThat(blocks).extracting(List::size).containsExactly(2, 2, 1);
+        List<SnapshotRecord> read = blocks.stream().flatMap(List::stream).toList();
+        for (int i = 0; i < records.size(); i++) {
+            SnapshotRecord expected = records.get(i);
+            SnapshotRecord actual = read.get(i);
+            assertThat(actual.id()).isEqualTo(expected.id());
+            assertThat(actual.content()).isEqualTo(expected.content());
+            assertThat(actual.metadata()).isEqualTo(expected.metadata());
+            assertThat(actual.embedding()).containsExactly(expected.embedding());
+        }
+    }
+
+    @Test
+    void emptySnapshotHasOnlyHeaderAndTrailer() throws IOException {
+        byte[] file = write(List.of(), true, 2);
+
+        assertThat(file).hasSize(HEADER_LENGTH + Integer.BYTES + Long.BYTES);
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(file))) {
+            assertThat(reader.nextBlock()).isNull();
+            assertThat(reader.getRowCount()).isZero();
+        }
+    }
+
+    @Test
+    void writesHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(write(records(1), true, 2));
+
+        byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+        header.get(magic);
+        assertThat(new String(magic)).isEqualTo("RAGSNAP1");
+        assertThat(header.getInt()).isEqualTo(SnapshotWriter.VERSION);
+        assertThat(header.getInt()).isEqualTo(DIMENSION);
+        assertThat(header.get()).isEqualTo(SnapshotWriter.COMPRESSION_DEFLATE);
+    }
+
+    @Test
+    void rejectsBadMagic() throws IOException {
+        byte[] file = write(records(1), true, 2);
+        file[0] = 'X';
+
+        assertThatThrownBy(() -> new SnapshotReader(new ByteArrayInputStream(file)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("bad magic");
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() throws IOException {
+        byte[] file = write(records(1), true, 2);
+        ByteBuffer.wrap(file).putInt(SnapshotWriter.MAGIC.length, SnapshotWriter.VERSION + 1);
+
+        assertThatThrownBy(() -> new SnapshotReader(new ByteArrayInputStream(file)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("unsupported snapshot version");
+    }
+
+    @Test
+    void rejectsFileShorterThanMagic() {
+        assertThatThrownBy(() -> new SnapshotReader(new ByteArrayInputStream(new byte[3])))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("file too short");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void rejectsTruncatedBlock(boolean compress) throws IOException {
+        byte[] file = write(records(3), compress, 2);
+        // 截在第一个数据块中间
+        byte[] truncated = Arrays.copyOf(file, HEADER_LENGTH + 20);
+
+        assertThatThrownBy(() -> readAll(truncated))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("truncated after 0 rows");
+    }
+
+    @Test
+    void rejectsMissingTrailer() throws IOException {
+        byte[] file = write(records(3), true, 2);
+        // 去掉文件尾：数据块都完整，但没有写完（例如导出进程中途被杀）
+        byte[] truncated = Arrays.copyOf(file, file.length - Integer.BYTES - Long.BYTES);
+
+        assertThatThrownBy(() -> readAll(truncated))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("truncated after 3 rows");
+    }
+
+    @Test
+    void rejectsTrailerWithWrongRowCount() throws IOException {
+        byte[] file = write(records(3), true, 2);
+        ByteBuffer.wrap(file).putLong(file.length - Long.BYTES, 4);
+
+        assertThatThrownBy(() -> readAll(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("expects 4 rows but read 3");
+    }
+
+    @Test
+    void rejectsCorruptPayload() throws IOException {
+        byte[] file = write(records(1), false, 2);
+        // 块头 rows + rawLength + storedLength + crc32 之后是未压缩的数据，翻转其中一个字节
+        file[HEADER_LENGTH + 4 * Integer.BYTES + 6] ^= 0x01;
+
+        assertThatThrownBy(() -> readAll(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("checksum mismatch");
+    }
+
+    @Test
+    void rejectsCorruptCompressedPayload() throws IOException {
+        byte[] file = write(records(2), true, 2);
+        int payload = HEADER_LENGTH + 4 * Integer.BYTES;
+        Arrays.fill(file, payload, payload + 8, (byte) 0xFF);
+
+        assertThatThrownBy(() -> readAll(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("corrupt snapshot block");
+    }
+
+    @Test
+    void rejectsEmbeddingOfWrongDimension() throws IOException {
+        try (SnapshotWriter writer = new SnapshotWriter(new ByteArrayOutputStream(), DIMENSION, true, 2)) {
+            SnapshotRecord record = new SnapshotRecord("doc-0", "text", "{}", new float[DIMENSION + 1]);
+
+            assertThatThrownBy(() -> writer.write(record))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does not match snapshot dimension");
+        }
+    }
+
+    private static List<SnapshotRecord> records(int count) {
+        List<SnapshotRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] embedding = new float[DIMENSION];
+            for (int j = 0; j < DIMENSION; j++) {
+                embedding[j] = i - j * 0.25f;
+            }
+            records.add(new SnapshotRecord("doc-" + i, "小微企业增值税起征点提高到每月十万元。第 " + i + " 段",
+                "{\"filename\":\"policy-" + i + ".pdf\"}", embedding));
+        }
+        return records;
+    }
+
+    private static byte[] write(List<SnapshotRecord> records, boolean compress, int blockRows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out, DIMENSION, compress, blockRows)) {
+            for (SnapshotRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void readAll(byte[] file) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(file))) {
+            while (reader.nextBlock() != null) {
+                // 只校验能否完整读完
+            }
+        }
+    }
+}